@@ -0,0 +1,128 @@
+package com.example.store.benchmark;
+
+import com.example.store.StoreApplication;
+import com.example.store.service.CountMode;
+import com.example.store.service.CustomerService;
+import com.example.store.service.OrderService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Listing pages served by more threads than the pool has connections, with the connection held until the response is
+ * serialized (what open-in-view amounts to: the request's session keeps it from the first statement to the end of the
+ * request) against the service layer, which returns it as soon as the mapped DTOs are built. Besides the throughput,
+ * the tear-down prints the mean and max of {@code hikaricp.connections.usage} (how long a connection was held) and
+ * {@code hikaricp.connections.acquire} (how long threads waited for one). Needs the local database, filled with
+ * {@code ./gradlew generateData}; run with {@code ./gradlew jmh -PjmhInclude=ConnectionHoldBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(16)
+public class ConnectionHoldBenchmark {
+
+    @Param({"4"})
+    private int poolSize;
+
+    @Param({"50"})
+    private int pageSize;
+
+    private ConfigurableApplicationContext context;
+    private OrderService orderService;
+    private CustomerService customerService;
+    private ObjectMapper objectMapper;
+    private TransactionTemplate request;
+    private Pageable pageable;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(StoreApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.hikari.maximum-pool-size=" + poolSize,
+                        "spring.datasource.hikari.minimum-idle=" + poolSize,
+                        "store.metrics.sql-counts.enabled=false",
+                        "spring.liquibase.enabled=false",
+                        "spring.jpa.properties.hibernate.format_sql=false",
+                        "spring.jpa.properties.hibernate.use_sql_comments=false")
+                .run();
+        orderService = context.getBean(OrderService.class);
+        customerService = context.getBean(CustomerService.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+        request = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        request.setReadOnly(true);
+        pageable = PageRequest.of(10, pageSize, Sort.by("id").descending());
+    }
+
+    @TearDown
+    public void tearDown() {
+        MeterRegistry registry = context.getBean(MeterRegistry.class);
+        print(registry.find("hikaricp.connections.usage").timer());
+        print(registry.find("hikaricp.connections.acquire").timer());
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] ordersHeldThroughSerialization() {
+        return request.execute(status -> serialize(() -> orderService.findPage(pageable, CountMode.EXACT)));
+    }
+
+    @Benchmark
+    public byte[] ordersServiceLayer() {
+        return serialize(() -> orderService.findPage(pageable, CountMode.EXACT));
+    }
+
+    @Benchmark
+    public byte[] customersHeldThroughSerialization() {
+        return request.execute(status -> serialize(() -> customerService.findPage(pageable, CountMode.EXACT)));
+    }
+
+    @Benchmark
+    public byte[] customersServiceLayer() {
+        return serialize(() -> customerService.findPage(pageable, CountMode.EXACT));
+    }
+
+    private byte[] serialize(Supplier<?> body) {
+        try {
+            return objectMapper.writeValueAsBytes(body.get());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void print(Timer timer) {
+        if (timer != null) {
+            System.out.printf(
+                    "%n%s: mean %.3f ms, max %.3f ms over %d%n",
+                    timer.getId().getName(),
+                    timer.mean(TimeUnit.MILLISECONDS),
+                    timer.max(TimeUnit.MILLISECONDS),
+                    timer.count());
+        }
+    }
+}
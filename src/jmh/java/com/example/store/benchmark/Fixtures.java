@@ -0,0 +1,57 @@
+package com.example.store.benchmark;
+
+import com.example.store.entity.Customer;
+import com.example.store.entity.Order;
+import com.example.store.entity.Product;
+
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Entity graphs shaped like production data, and the MapStruct mappers wired the way the application wires them. */
+final class Fixtures {
+
+    static final int PRODUCTS_PER_ORDER = 3;
+
+    private Fixtures() {}
+
+    /** The generated mappers reference each other through {@code @Autowired} fields, so let Spring wire them. */
+    static AnnotationConfigApplicationContext mappers() {
+        return new AnnotationConfigApplicationContext("com.example.store.mapper");
+    }
+
+    static Customer customerWithOrders(long customerId, int orderCount) {
+        Customer customer = new Customer();
+        customer.setId(customerId);
+        customer.setName("Customer " + customerId);
+        List<Product> products = products(PRODUCTS_PER_ORDER);
+        for (int i = 0; i < orderCount; i++) {
+            Order order = new Order();
+            order.setId(customerId * 100_000 + i);
+            order.setDescription("Order " + i + " for customer " + customerId);
+            order.setCustomer(customer);
+            order.setProducts(products);
+            customer.getOrders().add(order);
+        }
+        return customer;
+    }
+
+    static Product productInOrders(int orderCount) {
+        Customer customer = customerWithOrders(1, orderCount);
+        Product product = customer.getOrders().get(0).getProducts().get(0);
+        product.setOrders(new ArrayList<>(customer.getOrders()));
+        return product;
+    }
+
+    private static List<Product> products(int count) {
+        List<Product> products = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Product product = new Product();
+            product.setId((long) i + 1);
+            product.setDescription("Product " + (i + 1));
+            products.add(product);
+        }
+        return products;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.store.benchmark;
+
+import com.example.store.dto.CustomerDTO;
+import com.example.store.dto.OrderDTO;
+import com.example.store.dto.ProductDTO;
+import com.example.store.mapper.CustomerMapper;
+import com.example.store.mapper.OrderMapper;
+import com.example.store.mapper.ProductMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/** Jackson serialization throughput of the response DTOs, excluding mapping (see {@link MapperBenchmark}). */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class JsonSerializationBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    private int orders;
+
+    private ObjectWriter orderWriter;
+    private ObjectWriter customerWriter;
+    private ObjectWriter productWriter;
+
+    private OrderDTO order;
+    private CustomerDTO customer;
+    private ProductDTO product;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        orderWriter = objectMapper.writerFor(OrderDTO.class);
+        customerWriter = objectMapper.writerFor(CustomerDTO.class);
+        productWriter = objectMapper.writerFor(ProductDTO.class);
+
+        try (AnnotationConfigApplicationContext context = Fixtures.mappers()) {
+            var entity = Fixtures.customerWithOrders(1, orders);
+            order = context.getBean(OrderMapper.class).toDto(entity.getOrders().get(0));
+            customer = context.getBean(CustomerMapper.class).toDto(entity);
+            product = context.getBean(ProductMapper.class).toDto(Fixtures.productInOrders(orders));
+        }
+        // The mapper leaves orderIds to OrderIdPreviews, which reads at most the preview limit (100 by default)
+        product.setOrderIds(LongStream.rangeClosed(1, Math.min(orders, 100)).boxed().toList());
+    }
+
+    @Benchmark
+    public byte[] serializeOrder() throws JsonProcessingException {
+        return orderWriter.writeValueAsBytes(order);
+    }
+
+    @Benchmark
+    public byte[] serializeCustomer() throws JsonProcessingException {
+        return customerWriter.writeValueAsBytes(customer);
+    }
+
+    @Benchmark
+    public byte[] serializeProduct() throws JsonProcessingException {
+        return productWriter.writeValueAsBytes(product);
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.store.benchmark;
+
+import com.example.store.StoreApplication;
+import com.example.store.dto.CustomerDTO;
+import com.example.store.dto.OrderDTO;
+import com.example.store.mapper.CustomerMapper;
+import com.example.store.mapper.OrderMapper;
+import com.example.store.repository.CustomerRepository;
+import com.example.store.repository.DirectDtoQueries;
+import com.example.store.repository.OrderRepository;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One listing page read through entities and the mappers (as the endpoints do by default) against the same page read
+ * by {@link DirectDtoQueries}. Unlike the other benchmarks this one needs the local database, filled with
+ * {@code ./gradlew generateData}; run with {@code ./gradlew jmh -PjmhInclude=ListingReadPathBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ListingReadPathBenchmark {
+
+    @Param({"20", "100"})
+    private int pageSize;
+
+    private ConfigurableApplicationContext context;
+    private OrderRepository orderRepository;
+    private CustomerRepository customerRepository;
+    private OrderMapper orderMapper;
+    private CustomerMapper customerMapper;
+    private DirectDtoQueries directDtoQueries;
+    private TransactionTemplate readOnly;
+    private Pageable pageable;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(StoreApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "store.listing.direct-dto.enabled=true",
+                        "store.metrics.sql-counts.enabled=false",
+                        "spring.liquibase.enabled=false",
+                        "spring.jpa.properties.hibernate.format_sql=false",
+                        "spring.jpa.properties.hibernate.use_sql_comments=false")
+                .run();
+        orderRepository = context.getBean(OrderRepository.class);
+        customerRepository = context.getBean(CustomerRepository.class);
+        orderMapper = context.getBean(OrderMapper.class);
+        customerMapper = context.getBean(CustomerMapper.class);
+        directDtoQueries = context.getBean(DirectDtoQueries.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+        pageable = PageRequest.of(10, pageSize, Sort.by("id").descending());
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<OrderDTO> ordersThroughEntities() {
+        return readOnly.execute(status -> orderRepository.findPage(pageable).map(orderMapper::toDto));
+    }
+
+    @Benchmark
+    public Page<OrderDTO> ordersDirect() {
+        return directDtoQueries.findOrderPage(pageable);
+    }
+
+    @Benchmark
+    public Page<CustomerDTO> customersThroughEntities() {
+        return readOnly.execute(status -> customerRepository.findPage(pageable).map(customerMapper::toDto));
+    }
+
+    @Benchmark
+    public Page<CustomerDTO> customersDirect() {
+        return directDtoQueries.findCustomerPage(pageable);
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.store.benchmark;
+
+import com.example.store.dto.CustomerDTO;
+import com.example.store.dto.OrderDTO;
+import com.example.store.dto.ProductDTO;
+import com.example.store.entity.Customer;
+import com.example.store.entity.Order;
+import com.example.store.entity.Product;
+import com.example.store.mapper.CustomerMapper;
+import com.example.store.mapper.OrderMapper;
+import com.example.store.mapper.ProductMapper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to DTO mapping throughput. {@code orders} is the size of the embedded collections: orders of the customer,
+ * and orders containing the product (which the product mapping no longer reads; its order ids come from
+ * {@code order_product}). Run with {@code ./gradlew jmh}; the gc profiler reports the allocation rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MapperBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    private int orders;
+
+    private AnnotationConfigApplicationContext context;
+    private OrderMapper orderMapper;
+    private CustomerMapper customerMapper;
+    private ProductMapper productMapper;
+
+    private Order order;
+    private Customer customer;
+    private Product product;
+
+    @Setup
+    public void setUp() {
+        context = Fixtures.mappers();
+        orderMapper = context.getBean(OrderMapper.class);
+        customerMapper = context.getBean(CustomerMapper.class);
+        productMapper = context.getBean(ProductMapper.class);
+
+        customer = Fixtures.customerWithOrders(1, orders);
+        order = customer.getOrders().get(0);
+        product = Fixtures.productInOrders(orders);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public OrderDTO orderToDto() {
+        return orderMapper.toDto(order);
+    }
+
+    @Benchmark
+    public CustomerDTO customerToDto() {
+        return customerMapper.toDto(customer);
+    }
+
+    @Benchmark
+    public ProductDTO productToDto() {
+        return productMapper.toDto(product);
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.store.benchmark;
+
+import com.example.store.StoreApplication;
+import com.example.store.dto.CustomerOrderDTO;
+import com.example.store.dto.OrderCustomerDTO;
+import com.example.store.dto.OrderDTO;
+import com.example.store.dto.OrderProductDTO;
+import com.example.store.service.CustomerService;
+import com.example.store.service.OrderService;
+import com.example.store.service.ProductService;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of creating an order and of the order lookups (by id, a customer's newest orders, a product's newest order
+ * ids), for comparing the order tables before and after they are range partitioned ({@code schema-8.sql}). Ids are
+ * drawn uniformly from the rows present, so most lookups miss the cache as they would at scale.
+ *
+ * <p>Needs the local database. Fill it with {@code ./gradlew generateData --args="--truncate=true --orders=100000000"}
+ * and run {@code ./gradlew jmh -PjmhInclude=OrderPartitioningBenchmark}; then start the application once with
+ * {@code STORE_ORDERS_PARTITIONS_ENABLED=true} to convert the tables, and run it again.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OrderPartitioningBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private OrderService orderService;
+    private CustomerService customerService;
+    private ProductService productService;
+    private long[] orderIds;
+    private long[] customerIds;
+    private long[] productIds;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(StoreApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "store.metrics.sql-counts.enabled=false",
+                        "spring.liquibase.enabled=false",
+                        "spring.jpa.properties.hibernate.format_sql=false",
+                        "spring.jpa.properties.hibernate.use_sql_comments=false")
+                .run();
+        orderService = context.getBean(OrderService.class);
+        customerService = context.getBean(CustomerService.class);
+        productService = context.getBean(ProductService.class);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        orderIds = range(jdbcTemplate, "\"order\"");
+        customerIds = range(jdbcTemplate, "customer");
+        productIds = range(jdbcTemplate, "product");
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Long createOrder() {
+        OrderCustomerDTO customer = new OrderCustomerDTO();
+        customer.setId(random(customerIds));
+        OrderProductDTO product = new OrderProductDTO();
+        product.setId(random(productIds));
+        OrderDTO order = new OrderDTO();
+        order.setDescription("Benchmark order");
+        order.setCustomer(customer);
+        order.setProducts(List.of(product));
+        return orderService.create(order);
+    }
+
+    @Benchmark
+    public Optional<OrderDTO> orderById() {
+        return orderService.findById(random(orderIds));
+    }
+
+    @Benchmark
+    public List<CustomerOrderDTO> customerOrders() {
+        return customerService.findOrders(random(customerIds), null, 20);
+    }
+
+    @Benchmark
+    public List<Long> productOrderIds() {
+        return productService.findOrderIds(random(productIds), null, 100);
+    }
+
+    private static long[] range(JdbcTemplate jdbcTemplate, String table) {
+        return jdbcTemplate.queryForObject(
+                "SELECT MIN(id), MAX(id) FROM " + table,
+                (rs, rowNum) -> new long[] {rs.getLong(1), rs.getLong(2)});
+    }
+
+    private static long random(long[] range) {
+        return ThreadLocalRandom.current().nextLong(range[0], range[1] + 1);
+    }
+}
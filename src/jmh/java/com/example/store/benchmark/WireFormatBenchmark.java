@@ -0,0 +1,89 @@
+package com.example.store.benchmark;
+
+import com.example.store.dto.CustomerDTO;
+import com.example.store.dto.OrderDTO;
+import com.example.store.entity.Customer;
+import com.example.store.mapper.CustomerMapper;
+import com.example.store.mapper.OrderMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encoding a page of orders and a customer with its orders in each response format: CPU per response as throughput,
+ * and bytes on the wire, printed once per trial. {@code json-gzip} compresses like the server does for
+ * {@code Accept-Encoding: gzip} (default deflate level).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class WireFormatBenchmark {
+
+    @Param({"json", "json-gzip", "cbor", "smile"})
+    private String format;
+
+    @Param({"100", "1000"})
+    private int orders;
+
+    private ObjectMapper objectMapper;
+    private boolean gzip;
+
+    private List<OrderDTO> orderPage;
+    private CustomerDTO customer;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = switch (format) {
+            case "json", "json-gzip" -> new ObjectMapper();
+            case "cbor" -> new ObjectMapper(new CBORFactory());
+            case "smile" -> new ObjectMapper(new SmileFactory());
+            default -> throw new IllegalArgumentException(format);
+        };
+        gzip = format.endsWith("-gzip");
+
+        try (AnnotationConfigApplicationContext context = Fixtures.mappers()) {
+            Customer entity = Fixtures.customerWithOrders(1, orders);
+            OrderMapper orderMapper = context.getBean(OrderMapper.class);
+            orderPage = entity.getOrders().stream().map(orderMapper::toDto).toList();
+            customer = context.getBean(CustomerMapper.class).toDto(entity);
+        }
+        System.out.printf(
+                "%n%s, %d orders: order page %d bytes, customer %d bytes%n",
+                format, orders, encodeOrderPage().length, encodeCustomer().length);
+    }
+
+    @Benchmark
+    public byte[] encodeOrderPage() throws IOException {
+        return encode(orderPage);
+    }
+
+    @Benchmark
+    public byte[] encodeCustomer() throws IOException {
+        return encode(customer);
+    }
+
+    private byte[] encode(Object value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(8192);
+        try (OutputStream out = gzip ? new GZIPOutputStream(bytes) : bytes) {
+            objectMapper.writeValue(out, value);
+        }
+        return bytes.toByteArray();
+    }
+}
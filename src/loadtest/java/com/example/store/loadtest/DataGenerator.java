@@ -0,0 +1,223 @@
+package com.example.store.loadtest;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.SplittableRandom;
+
+/**
+ * Bulk-loads synthetic customers, products, orders and {@code order_product} rows through the PostgreSQL COPY
+ * protocol, appending after the ids already present. The schema must already exist (start the application once so
+ * Liquibase creates it).
+ *
+ * <p>Product popularity is skewed (a few products appear in a large share of orders), matching production. Options
+ * ({@code --name=value}): {@code url}, {@code user}, {@code password}, {@code customers}, {@code products},
+ * {@code orders}, {@code products-per-order}, {@code truncate}, {@code seed}, and {@code partition-size} for the
+ * partitions created for the generated orders when the order tables are partitioned.
+ */
+public final class DataGenerator {
+
+    private static final int FLUSH_BYTES = 1 << 20;
+
+    private static final String[] FIRST_NAMES = {
+        "Muriel", "Lance", "Denise", "Dianne", "Jean", "Suresh", "Aroha", "Wiremu", "Priya", "Chen", "Olivia", "Noah",
+        "Amelia", "Oliver", "Isla", "Jack", "Charlotte", "Leo", "Mia", "Lucas", "Ava", "Hunter", "Harper", "Mason"
+    };
+    private static final String[] LAST_NAMES = {
+        "Donnelly", "Stiedemann", "Harris", "Lemke", "Daniel", "Kumar", "Ngata", "Smith", "Patel", "Wang", "Williams",
+        "Brown", "Wilson", "Taylor", "Jones", "Singh", "Walker", "Thompson", "Clark", "White", "Lee", "Martin"
+    };
+    private static final String[] ITEMS = {
+        "Mug", "Wet wipes", "Notebook", "Stapler", "Desk lamp", "Headphones", "Keyboard", "Monitor stand", "Backpack",
+        "Water bottle", "Umbrella", "Phone case", "Charger", "Pen set", "Coffee beans", "Tea towel", "Candle"
+    };
+
+    private DataGenerator() {}
+
+    public static void main(String[] argv) throws SQLException {
+        Args args = new Args(argv);
+        long customers = args.getLong("customers", 1_000_000);
+        long products = args.getLong("products", 10_000);
+        long orders = args.getLong("orders", 10_000_000);
+        int productsPerOrder = args.getInt("products-per-order", 3);
+        long partitionSize = args.getLong("partition-size", 10_000_000);
+        SplittableRandom random = new SplittableRandom(args.getLong("seed", 42));
+
+        try (Connection connection = DriverManager.getConnection(
+                args.get("url", "jdbc:postgresql://localhost:5433/store"),
+                args.get("user", "admin"),
+                args.get("password", "admin"))) {
+            if (args.getBoolean("truncate", false)) {
+                execute(connection, "TRUNCATE order_product, \"order\", customer, product, stats_delta");
+                execute(connection, "UPDATE store_totals SET value = 0");
+            }
+            long firstCustomer = maxId(connection, "customer") + 1;
+            long firstProduct = maxId(connection, "product") + 1;
+            long firstOrder = maxId(connection, "\"order\"") + 1;
+            // Existing ids may have gaps (pooled sequences), so generated orders only reference generated rows
+            if (orders > 0 && (customers == 0 || products == 0)) {
+                throw new IllegalArgumentException("Orders need at least one generated customer and product");
+            }
+
+            // Partitioned order tables (store.orders.partitions.enabled) need partitions for the generated ids and
+            // for the block the sequence is moved to below
+            if (orders > 0 && isPartitioned(connection, "\"order\"")) {
+                execute(
+                        connection,
+                        "SELECT create_order_partitions(" + (firstOrder + orders + 50) + ", " + partitionSize + ")");
+            }
+
+            long start = System.nanoTime();
+            copy(connection, "COPY customer (id, name) FROM STDIN", customers, (i, row) -> {
+                long id = firstCustomer + i;
+                row.append(id)
+                        .append('\t')
+                        .append(pick(random, FIRST_NAMES))
+                        .append(' ')
+                        .append(pick(random, LAST_NAMES))
+                        .append(' ')
+                        .append(id);
+            });
+            copy(connection, "COPY product (id, description) FROM STDIN", products, (i, row) -> row.append(
+                            firstProduct + i)
+                    .append('\t')
+                    .append(pick(random, ITEMS))
+                    .append(" #")
+                    .append(firstProduct + i));
+            copy(connection, "COPY \"order\" (id, description, customer_id) FROM STDIN", orders, (i, row) -> row.append(
+                            firstOrder + i)
+                    .append('\t')
+                    .append("Order of ")
+                    .append(pick(random, ITEMS))
+                    .append('\t')
+                    .append(firstCustomer + random.nextLong(customers)));
+            copy(connection, "COPY order_product (order_id, product_id) FROM STDIN", orders, (i, row) -> {
+                long[] chosen = new long[productsPerOrder];
+                int count = 0;
+                while (count < Math.min(productsPerOrder, products)) {
+                    // Squaring a uniform value skews towards low ids: the first 10% of products get ~30% of picks
+                    double u = random.nextDouble();
+                    long product = firstProduct + (long) (u * u * products);
+                    if (!contains(chosen, count, product)) {
+                        chosen[count++] = product;
+                    }
+                }
+                for (int k = 0; k < count; k++) {
+                    if (k > 0) {
+                        row.append('\n');
+                    }
+                    row.append(firstOrder + i).append('\t').append(chosen[k]);
+                }
+            });
+
+            // COPY bypasses the application, which maintains the counters and totals behind GET /stats. Set them as
+            // schema-7.sql does, for the generated rows only (generated orders only reference generated rows), and
+            // add the generated rows to the totals
+            execute(
+                    connection,
+                    "UPDATE customer c SET order_count = o.n FROM (SELECT customer_id, COUNT(*) AS n FROM \"order\" "
+                            + "WHERE id >= " + firstOrder + " GROUP BY customer_id) o WHERE o.customer_id = c.id");
+            execute(
+                    connection,
+                    "UPDATE product p SET order_count = op.n FROM (SELECT product_id, COUNT(*) AS n "
+                            + "FROM order_product WHERE order_id >= " + firstOrder + " GROUP BY product_id) op "
+                            + "WHERE op.product_id = p.id");
+            long orderLines = orders * Math.min(productsPerOrder, products);
+            execute(
+                    connection,
+                    "UPDATE store_totals SET value = value + CASE name WHEN 'customers' THEN " + customers
+                            + " WHEN 'products' THEN " + products + " WHEN 'orders' THEN " + orders
+                            + " WHEN 'order_lines' THEN " + orderLines + " ELSE 0 END");
+
+            // Keep the pooled sequences (INCREMENT BY 50) ahead of the ids we just wrote, as schema-3.sql does
+            for (String table : new String[] {"customer", "product", "order"}) {
+                execute(
+                        connection,
+                        "SELECT setval('" + table + "_id_seq', (SELECT COALESCE(MAX(id), 0) FROM \"" + table
+                                + "\") + 50, false)");
+            }
+            execute(connection, "ANALYZE customer, product, \"order\", order_product");
+            System.out.printf(
+                    "Loaded %,d customers, %,d products, %,d orders (%,d order_product rows) in %,d s%n",
+                    customers,
+                    products,
+                    orders,
+                    orderLines,
+                    (System.nanoTime() - start) / 1_000_000_000);
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(long index, StringBuilder row);
+    }
+
+    private static void copy(Connection connection, String sql, long rows, RowWriter writer) throws SQLException {
+        long start = System.nanoTime();
+        CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(sql);
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(FLUSH_BYTES + 4096);
+            StringBuilder row = new StringBuilder(256);
+            for (long i = 0; i < rows; i++) {
+                row.setLength(0);
+                writer.write(i, row);
+                row.append('\n');
+                buffer.writeBytes(row.toString().getBytes(StandardCharsets.UTF_8));
+                if (buffer.size() >= FLUSH_BYTES) {
+                    copyIn.writeToCopy(buffer.toByteArray(), 0, buffer.size());
+                    buffer.reset();
+                }
+            }
+            copyIn.writeToCopy(buffer.toByteArray(), 0, buffer.size());
+            copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+        System.out.printf("%s: %,d rows in %,d ms%n", sql, rows, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static long maxId(Connection connection, String table) throws SQLException {
+        try (Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery("SELECT COALESCE(MAX(id), 0) FROM " + table)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private static boolean isPartitioned(Connection connection, String table) throws SQLException {
+        try (Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery(
+                        "SELECT relkind = 'p' FROM pg_class WHERE oid = '" + table + "'::regclass")) {
+            rs.next();
+            return rs.getBoolean(1);
+        }
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private static String pick(SplittableRandom random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static boolean contains(long[] values, int count, long value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.store.loadtest;
+
+import java.util.Arrays;
+
+/** Latency samples for one endpoint, owned by a single worker thread until {@link #merge merged}. */
+final class LatencyRecorder {
+
+    private long[] samples = new long[1024];
+    private int size;
+    private long errors;
+
+    void record(long nanos, boolean ok) {
+        if (size == samples.length) {
+            samples = Arrays.copyOf(samples, size * 2);
+        }
+        samples[size++] = nanos;
+        if (!ok) {
+            errors++;
+        }
+    }
+
+    void merge(LatencyRecorder other) {
+        samples = Arrays.copyOf(samples, Math.max(samples.length, size + other.size));
+        System.arraycopy(other.samples, 0, samples, size, other.size);
+        size += other.size;
+        errors += other.errors;
+    }
+
+    int count() {
+        return size;
+    }
+
+    long errors() {
+        return errors;
+    }
+
+    /** Nearest-rank percentile in milliseconds; sorts the samples, so call after recording has finished. */
+    double percentileMillis(double percentile) {
+        if (size == 0) {
+            return 0;
+        }
+        Arrays.sort(samples, 0, size);
+        int rank = (int) Math.ceil(percentile / 100.0 * size);
+        return samples[Math.max(0, rank - 1)] / 1_000_000.0;
+    }
+}
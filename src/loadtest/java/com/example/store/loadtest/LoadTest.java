@@ -0,0 +1,246 @@
+package com.example.store.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Drives every controller endpoint at a fixed concurrency for a fixed duration and reports throughput and p50/p99
+ * latency per endpoint. Each worker runs a closed loop: send a request, wait for the response, pick the next one.
+ * Requests made during the warm-up are not recorded.
+ *
+ * <p>Options ({@code --name=value}): {@code base-url}, {@code concurrency}, {@code warmup} and {@code duration} (in
+ * seconds), {@code writes} (include the POST endpoints, default true). Run against a database filled by
+ * {@link DataGenerator} so the id ranges and result sizes are representative, and a store started with the
+ * {@code loadtest} profile ({@code ./gradlew bootRun --args=--spring.profiles.active=loadtest}) to also get the SQL
+ * statement and row counts per endpoint.
+ */
+public final class LoadTest {
+
+    private static final Pattern FIRST_ID = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+    private static final String[] SEARCH_TERMS = {"mur", "lance", "den", "kum", "pat", "wan", "son", "ar", "smith"};
+
+    private record Endpoint(String name, int weight, boolean write) {}
+
+    /** Read-heavy mix, roughly what the store sees in production. */
+    private static final List<Endpoint> ENDPOINTS = List.of(
+            new Endpoint("GET /orders?page", 10, false),
+            new Endpoint("GET /orders?limit", 10, false),
+            new Endpoint("GET /orders/{id}", 20, false),
+            new Endpoint("GET /customers?page", 5, false),
+            new Endpoint("GET /customers?limit", 5, false),
+            new Endpoint("GET /customers/search", 15, false),
+            new Endpoint("GET /products?page", 5, false),
+            new Endpoint("GET /products?limit", 5, false),
+            new Endpoint("GET /products/{id}", 15, false),
+            new Endpoint("POST /orders", 4, true),
+            new Endpoint("POST /orders/batch", 1, true),
+            new Endpoint("POST /customers", 3, true),
+            new Endpoint("POST /products", 2, true));
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final long maxOrderId;
+    private final long maxCustomerId;
+    private final long maxProductId;
+
+    private LoadTest(HttpClient client, String baseUrl) throws Exception {
+        this.client = client;
+        this.baseUrl = baseUrl;
+        this.maxOrderId = latestId("/api/v1/orders?limit=1");
+        this.maxCustomerId = latestId("/api/v1/customers?limit=1");
+        this.maxProductId = latestId("/api/v1/products?limit=1");
+    }
+
+    public static void main(String[] argv) throws Exception {
+        Args args = new Args(argv);
+        int concurrency = args.getInt("concurrency", 32);
+        long warmupNanos = Duration.ofSeconds(args.getLong("warmup", 10)).toNanos();
+        long durationNanos = Duration.ofSeconds(args.getLong("duration", 60)).toNanos();
+        boolean writes = args.getBoolean("writes", true);
+
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(4))
+                .build();
+        LoadTest loadTest = new LoadTest(client, args.get("base-url", "http://localhost:8080"));
+        List<Endpoint> mix = ENDPOINTS.stream().filter(e -> writes || !e.write()).toList();
+
+        System.out.printf(
+                "%d workers, %ds warm-up, %ds measured; latest ids: order %d, customer %d, product %d%n",
+                concurrency,
+                Duration.ofNanos(warmupNanos).toSeconds(),
+                Duration.ofNanos(durationNanos).toSeconds(),
+                loadTest.maxOrderId,
+                loadTest.maxCustomerId,
+                loadTest.maxProductId);
+
+        long measureFrom = System.nanoTime() + warmupNanos;
+        long end = measureFrom + durationNanos;
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        List<Future<Map<String, LatencyRecorder>>> results = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            long seed = i;
+            results.add(workers.submit(() -> loadTest.run(mix, new SplittableRandom(seed), measureFrom, end)));
+        }
+        Map<String, LatencyRecorder> merged = new LinkedHashMap<>();
+        mix.forEach(e -> merged.put(e.name(), new LatencyRecorder()));
+        for (Future<Map<String, LatencyRecorder>> result : results) {
+            result.get().forEach((name, recorder) -> merged.get(name).merge(recorder));
+        }
+        workers.shutdown();
+
+        report(merged, durationNanos);
+        System.exit(0);
+    }
+
+    private Map<String, LatencyRecorder> run(List<Endpoint> mix, SplittableRandom random, long measureFrom, long end) {
+        Map<String, LatencyRecorder> recorders = new LinkedHashMap<>();
+        mix.forEach(e -> recorders.put(e.name(), new LatencyRecorder()));
+        int totalWeight = mix.stream().mapToInt(Endpoint::weight).sum();
+        long now;
+        while ((now = System.nanoTime()) < end) {
+            Endpoint endpoint = choose(mix, random.nextInt(totalWeight));
+            HttpRequest request = request(endpoint.name(), random);
+            boolean ok;
+            try {
+                int status = client.send(request, HttpResponse.BodyHandlers.discarding())
+                        .statusCode();
+                ok = status < 400;
+            } catch (Exception e) {
+                ok = false;
+            }
+            if (now >= measureFrom) {
+                recorders.get(endpoint.name()).record(System.nanoTime() - now, ok);
+            }
+        }
+        return recorders;
+    }
+
+    private HttpRequest request(String endpoint, SplittableRandom random) {
+        return switch (endpoint) {
+            case "GET /orders?page" -> get("/api/v1/orders?size=20&page=" + random.nextInt(100));
+            case "GET /orders?limit" -> get("/api/v1/orders?limit=20&after=" + cursor(randomId(random, maxOrderId)));
+            case "GET /orders/{id}" -> get("/api/v1/orders/" + randomId(random, maxOrderId));
+            case "GET /customers?page" -> get("/api/v1/customers?size=20&page=" + random.nextInt(100));
+            case "GET /customers?limit" -> get(
+                    "/api/v1/customers?limit=20&after=" + cursor(randomId(random, maxCustomerId)));
+            case "GET /customers/search" -> get(
+                    "/api/v1/customers/search?q=" + SEARCH_TERMS[random.nextInt(SEARCH_TERMS.length)]);
+            case "GET /products?page" -> get("/api/v1/products?size=20&page=" + random.nextInt(100));
+            case "GET /products?limit" -> get(
+                    "/api/v1/products?limit=20&after=" + cursor(randomId(random, maxProductId)));
+            case "GET /products/{id}" -> get("/api/v1/products/" + randomId(random, maxProductId));
+            case "POST /orders" -> post("/api/v1/orders", order(random));
+            case "POST /orders/batch" -> post("/api/v1/orders/batch", orders(random, 100));
+            case "POST /customers" -> post("/api/v1/customers", "{\"name\":\"Load Test " + random.nextInt() + "\"}");
+            case "POST /products" -> post(
+                    "/api/v1/products", "{\"description\":\"Load Test " + random.nextInt() + "\"}");
+            default -> throw new IllegalArgumentException(endpoint);
+        };
+    }
+
+    private String order(SplittableRandom random) {
+        return "{\"description\":\"Load test order\",\"customer\":{\"id\":" + randomId(random, maxCustomerId)
+                + "},\"products\":[{\"id\":" + randomId(random, maxProductId) + "},{\"id\":"
+                + randomId(random, maxProductId) + "}]}";
+    }
+
+    private String orders(SplittableRandom random, int count) {
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i < count; i++) {
+            body.append(i == 0 ? "" : ",").append(order(random));
+        }
+        return body.append(']').toString();
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+    }
+
+    private HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private long latestId(String path) throws Exception {
+        String body = client.send(get(path), HttpResponse.BodyHandlers.ofString()).body();
+        Matcher matcher = FIRST_ID.matcher(body);
+        if (!matcher.find()) {
+            throw new IllegalStateException("No data behind " + path + "; run the data generator first");
+        }
+        return Long.parseLong(matcher.group(1));
+    }
+
+    /** Mirrors the server's cursor encoding so workers can start keyset pages at random positions. */
+    private static String cursor(long id) {
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString(Long.toString(id).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static long randomId(SplittableRandom random, long maxId) {
+        return 1 + random.nextLong(maxId);
+    }
+
+    private static Endpoint choose(List<Endpoint> mix, int ticket) {
+        for (Endpoint endpoint : mix) {
+            ticket -= endpoint.weight();
+            if (ticket < 0) {
+                return endpoint;
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    private static void report(Map<String, LatencyRecorder> recorders, long durationNanos) {
+        double seconds = durationNanos / 1_000_000_000.0;
+        System.out.printf(
+                "%n%-24s %10s %8s %10s %10s %10s %10s%n",
+                "endpoint",
+                "requests",
+                "errors",
+                "req/s",
+                "p50 ms",
+                "p99 ms",
+                "max ms");
+        LatencyRecorder total = new LatencyRecorder();
+        recorders.forEach((name, recorder) -> {
+            total.merge(recorder);
+            print(name, recorder, seconds);
+        });
+        print("total", total, seconds);
+    }
+
+    private static void print(String name, LatencyRecorder recorder, double seconds) {
+        System.out.printf(
+                "%-24s %10d %8d %10.1f %10.2f %10.2f %10.2f%n",
+                name,
+                recorder.count(),
+                recorder.errors(),
+                recorder.count() / seconds,
+                recorder.percentileMillis(50),
+                recorder.percentileMillis(99),
+                recorder.percentileMillis(100));
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.store.cache;
+
+import com.example.store.config.ReplicaRoutingDataSource;
+import com.example.store.dto.OrderDTO;
+import com.example.store.dto.ProductDTO;
+import com.example.store.service.OrderService;
+import com.example.store.service.ProductService;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Read-through cache of the mapped DTOs served by {@code GET /orders/{id}} and {@code GET /products/{id}}, so hot
+ * entries skip the EntityGraph join entirely.
+ *
+ * <p>Entries are bounded by count and expire after {@code expire-after-write}. Once older than
+ * {@code refresh-after-write} the next read still returns the cached value but triggers a reload in the background.
+ * Orders never change once created, so only products are invalidated: writers creating orders must call
+ * {@link #invalidateProducts} after their transaction commits. Entries are loaded from the primary, even with replicas
+ * enabled: a replica's lag would otherwise be served for as long as the entry lives, and an invalidation could be
+ * followed by a reload of the old value. Cached DTOs are shared between requests and must not be modified.
+ */
+@Component
+public class DtoCache {
+
+    private final LoadingCache<Long, OrderDTO> orders;
+    private final LoadingCache<Long, ProductDTO> products;
+
+    public DtoCache(
+            OrderService orderService,
+            ProductService productService,
+            @Value("${store.cache.maximum-size:10000}") long maximumSize,
+            @Value("${store.cache.expire-after-write:10m}") Duration expireAfterWrite,
+            @Value("${store.cache.refresh-after-write:1m}") Duration refreshAfterWrite) {
+        // A loader returning null means "not found"; Caffeine does not cache it, so a later insert is seen at once.
+        this.orders = builder(maximumSize, expireAfterWrite, refreshAfterWrite)
+                .build(id -> ReplicaRoutingDataSource.onPrimary(
+                        () -> orderService.findById(id).orElse(null)));
+        this.products = builder(maximumSize, expireAfterWrite, refreshAfterWrite)
+                .build(id -> ReplicaRoutingDataSource.onPrimary(
+                        () -> productService.findById(id, true).orElse(null)));
+    }
+
+    private static Caffeine<Object, Object> builder(
+            long maximumSize, Duration expireAfterWrite, Duration refreshAfterWrite) {
+        return Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .refreshAfterWrite(refreshAfterWrite)
+                .recordStats();
+    }
+
+    public OrderDTO getOrder(Long id) {
+        return orders.get(id);
+    }
+
+    public ProductDTO getProduct(Long id) {
+        return products.get(id);
+    }
+
+    /** The cached DTO, or {@code null} without loading it. */
+    public OrderDTO peekOrder(Long id) {
+        return orders.getIfPresent(id);
+    }
+
+    /** The cached DTO, or {@code null} without loading it. */
+    public ProductDTO peekProduct(Long id) {
+        return products.getIfPresent(id);
+    }
+
+    /** A new order changes the {@link ProductDTO#getOrderIds()} preview of every product it references. */
+    public void invalidateProducts(Collection<Long> ids) {
+        products.invalidateAll(ids);
+    }
+
+    /** For tests, which need each case to start with empty caches. */
+    public void invalidateAll() {
+        orders.invalidateAll();
+        products.invalidateAll();
+    }
+
+    public Map<String, CacheStats> stats() {
+        Map<String, CacheStats> stats = new LinkedHashMap<>();
+        stats.put("orders", orders.stats());
+        stats.put("products", products.stats());
+        return stats;
+    }
+
+    public Map<String, Long> sizes() {
+        Map<String, Long> sizes = new LinkedHashMap<>();
+        sizes.put("orders", orders.estimatedSize());
+        sizes.put("products", products.estimatedSize());
+        return sizes;
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.store.config;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+import javax.sql.DataSource;
+
+/**
+ * Puts a {@link BoundedDataSource} in front of the connection pool when {@code store.datasource.limiter.enabled} is
+ * set. It is on by default together with {@code spring.threads.virtual.enabled}.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "store.datasource.limiter.enabled", havingValue = "true")
+public class DataSourceConfig {
+
+    // Static so the post-processor is registered without initialising this configuration class early
+    @Bean
+    static BeanPostProcessor boundedDataSourcePostProcessor(Environment environment) {
+        int permits = environment.getRequiredProperty("store.datasource.limiter.permits", Integer.class);
+        Duration acquireTimeout = environment.getProperty(
+                "store.datasource.limiter.acquire-timeout", Duration.class, Duration.ofSeconds(30));
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof BoundedDataSource)) {
+                    return new BoundedDataSource(dataSource, permits, acquireTimeout);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.store.config;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.core.convert.converter.ConverterFactory;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Converts request parameters to enum constants regardless of case ({@code ?count=approx}). A value naming no constant
+ * fails with a message listing the accepted ones, which the exception handler returns as a bad request.
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class EnumParamConverterFactory implements ConverterFactory<String, Enum> {
+
+    @Override
+    public <T extends Enum> Converter<String, T> getConverter(Class<T> targetType) {
+        return value -> convert(targetType, value);
+    }
+
+    private static <T extends Enum> T convert(Class<T> type, String value) {
+        String name = value.trim();
+        if (name.isEmpty()) {
+            return null;
+        }
+        for (T constant : type.getEnumConstants()) {
+            if (constant.name().equalsIgnoreCase(name)) {
+                return constant;
+            }
+        }
+        throw new IllegalArgumentException("Unknown " + label(type) + " '" + value + "', expected any of "
+                + Arrays.stream(type.getEnumConstants())
+                        .map(constant -> constant.name().toLowerCase(Locale.ROOT))
+                        .toList());
+    }
+
+    /** {@code CountMode} becomes {@code count mode}. */
+    private static String label(Class<?> type) {
+        return type.getSimpleName().replaceAll("(?<=[a-z])(?=[A-Z])", " ").toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.store.config;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.sql.SQLException;
+
+/**
+ * Keeps reads that may come from a replica from filling the second-level cache: read-only transactions only read it,
+ * unless the thread is on the primary ({@link ReplicaRoutingDataSource#usePrimary}). A lagging replica's rows would
+ * otherwise stay cached until they expire, however soon the replica catches up. Writes, and reads on the primary
+ * (such as {@link com.example.store.cache.DtoCache} loads), still fill it. Entity managers are transaction-scoped
+ * (open-in-view is off), so the cache mode ends with the transaction.
+ */
+class ReplicaAwareJpaDialect extends HibernateJpaDialect {
+
+    @Override
+    public Object beginTransaction(EntityManager entityManager, TransactionDefinition definition)
+            throws PersistenceException, SQLException {
+        Object transactionData = super.beginTransaction(entityManager, definition);
+        if (definition.isReadOnly() && !ReplicaRoutingDataSource.isUsingPrimary()) {
+            entityManager.unwrap(Session.class).setCacheMode(CacheMode.GET);
+        }
+        return transactionData;
+    }
+}
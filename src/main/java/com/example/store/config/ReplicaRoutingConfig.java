@@ -0,0 +1,121 @@
+package com.example.store.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.orm.jpa.AbstractEntityManagerFactoryBean;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.sql.DataSource;
+
+/**
+ * Routes read-only transactions to the read replicas in {@code store.datasource.replicas.urls} when
+ * {@code store.datasource.replicas.enabled} is set; see {@link ReplicaRoutingDataSource}. Each replica gets its own
+ * Hikari pool, sized like the primary's. Reads stay on the primary for {@code read-your-writes} after a client's write
+ * ({@link ReadYourWritesFilter}), and only reads on the primary fill the second-level cache
+ * ({@link ReplicaAwareJpaDialect}).
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "store.datasource.replicas.enabled", havingValue = "true")
+public class ReplicaRoutingConfig {
+
+    // Static so the post-processor is registered without initialising this configuration class early
+    @Bean
+    static BeanPostProcessor replicaRoutingDataSourcePostProcessor(Environment environment) {
+        return new RoutingPostProcessor(environment);
+    }
+
+    /** Installs {@link ReplicaAwareJpaDialect}, which the JPA transaction manager takes from the factory. */
+    @Bean
+    static BeanPostProcessor replicaAwareJpaDialectPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof AbstractEntityManagerFactoryBean factory) {
+                    factory.setJpaDialect(new ReplicaAwareJpaDialect());
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter(
+            @Value("${store.datasource.replicas.read-your-writes:5s}") Duration window) {
+        return new FilterRegistrationBean<>(new ReadYourWritesFilter(window));
+    }
+
+    /** Replica states under {@code /actuator/health}; always up, since reads fall back to the primary. */
+    @Bean
+    HealthIndicator replicasHealthIndicator(DataSource dataSource) throws SQLException {
+        ReplicaRoutingDataSource routing = dataSource.unwrap(ReplicaRoutingDataSource.class);
+        return () -> Health.up().withDetails(routing.replicaStates()).build();
+    }
+
+    /**
+     * Ordered, so it wraps the pool before the unordered post-processors ({@link BoundedDataSource}, SQL metrics) wrap
+     * the result, and those also see replica connections.
+     */
+    private static final class RoutingPostProcessor implements BeanPostProcessor, Ordered {
+
+        private final Environment environment;
+
+        private RoutingPostProcessor(Environment environment) {
+            this.environment = environment;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof DataSource primary) || bean instanceof ReplicaRoutingDataSource) {
+                return bean;
+            }
+            String[] urls = environment.getRequiredProperty("store.datasource.replicas.urls", String[].class);
+            Map<String, DataSource> replicas = new LinkedHashMap<>();
+            for (int i = 0; i < urls.length; i++) {
+                String name = "replica-" + (i + 1);
+                replicas.put(name, replicaPool(name, urls[i].trim()));
+            }
+            return new ReplicaRoutingDataSource(
+                    primary,
+                    replicas,
+                    environment.getProperty("store.datasource.replicas.max-lag", Duration.class, Duration.ofSeconds(5)),
+                    environment.getProperty(
+                            "store.datasource.replicas.check-interval", Duration.class, Duration.ofSeconds(5)));
+        }
+
+        private DataSource replicaPool(String name, String url) {
+            HikariConfig config = new HikariConfig();
+            config.setPoolName(name);
+            config.setJdbcUrl(url);
+            config.setUsername(environment.getProperty("store.datasource.replicas.username"));
+            config.setPassword(environment.getProperty("store.datasource.replicas.password"));
+            config.setMaximumPoolSize(
+                    environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10));
+            config.setConnectionTimeout(environment
+                    .getProperty("store.datasource.replicas.connection-timeout", Duration.class, Duration.ofSeconds(2))
+                    .toMillis());
+            config.setReadOnly(true);
+            // Start even if a replica is down; it is used once a health check reaches it
+            config.setInitializationFailTimeout(-1);
+            return new HikariDataSource(config);
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+    }
+}
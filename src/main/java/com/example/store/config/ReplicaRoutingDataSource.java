@@ -0,0 +1,201 @@
+package com.example.store.config;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import javax.sql.DataSource;
+
+/**
+ * Sends read-only transactions to a read replica and everything else to the primary.
+ *
+ * <p>Connections are handed out lazily and only fetched from a pool when the first statement runs, by which time the
+ * transaction manager has marked them read-only or not ({@link LazyConnectionDataSourceProxy#setReadOnlyDataSource}).
+ * Read-only connections go round-robin to the replicas that passed their last health check: reachable, streaming WAL
+ * from the primary, and replaying it no more than {@code maxLag} behind. Replicas are checked every
+ * {@code checkInterval}; with none healthy, or while {@link #usePrimary} is set for the current thread, reads use the
+ * primary too.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+
+    /**
+     * Zero on a primary, and on a streaming replica that has replayed everything it received. Null, meaning unknown, on
+     * a replica without a streaming WAL receiver: it has also replayed everything it received, but may have stopped
+     * receiving any time ago. Without {@code pg_read_all_stats} the receiver's status reads as null, so only its
+     * presence is checked then.
+     */
+    private static final String LAG_SQL =
+            """
+            SELECT CASE WHEN NOT pg_is_in_recovery() THEN 0
+                        WHEN NOT EXISTS (SELECT 1 FROM pg_stat_wal_receiver
+                                         WHERE COALESCE(status, 'streaming') = 'streaming') THEN NULL
+                        WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                        ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0) END
+            """;
+
+    private static final ThreadLocal<Boolean> PRIMARY_ONLY = new ThreadLocal<>();
+
+    private final List<Replica> replicas;
+    private final Duration maxLag;
+    private final AtomicInteger next = new AtomicInteger();
+    private final ScheduledExecutorService checker;
+
+    public ReplicaRoutingDataSource(
+            DataSource primary, Map<String, DataSource> replicas, Duration maxLag, Duration checkInterval) {
+        super(primary);
+        this.replicas = replicas.entrySet().stream()
+                .map(e -> new Replica(e.getKey(), e.getValue()))
+                .toList();
+        this.maxLag = maxLag;
+        setReadOnlyDataSource(new ReplicaSelector());
+        checkReplicas();
+        this.checker = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "replica-health");
+            thread.setDaemon(true);
+            return thread;
+        });
+        checker.scheduleWithFixedDelay(
+                this::checkReplicas, checkInterval.toMillis(), checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /** Makes the current thread read from the primary (read-your-writes), until called with {@code false}. */
+    public static void usePrimary(boolean primary) {
+        if (primary) {
+            PRIMARY_ONLY.set(Boolean.TRUE);
+        } else {
+            PRIMARY_ONLY.remove();
+        }
+    }
+
+    /**
+     * Runs {@code action} reading from the primary, for reads whose result outlives the request (such as cache loads),
+     * where a lagging replica's data would be served long after the replica caught up. Restores the current thread's
+     * setting afterwards.
+     */
+    public static <T> T onPrimary(Supplier<T> action) {
+        Boolean previous = PRIMARY_ONLY.get();
+        PRIMARY_ONLY.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                PRIMARY_ONLY.remove();
+            }
+        }
+    }
+
+    /** Whether the current thread reads from the primary only (replicas may still be skipped when it doesn't). */
+    public static boolean isUsingPrimary() {
+        return PRIMARY_ONLY.get() != null;
+    }
+
+    /** Health and lag in seconds per replica, as of the last check. */
+    public Map<String, Map<String, Object>> replicaStates() {
+        Map<String, Map<String, Object>> states = new LinkedHashMap<>();
+        replicas.forEach(r -> states.put(r.name, Map.of("healthy", r.healthy, "lagSeconds", r.lagSeconds)));
+        return states;
+    }
+
+    void checkReplicas() {
+        for (Replica replica : replicas) {
+            boolean healthy;
+            try (Connection connection = replica.dataSource.getConnection();
+                    Statement statement = connection.createStatement()) {
+                statement.setQueryTimeout(5);
+                try (ResultSet rs = statement.executeQuery(LAG_SQL)) {
+                    rs.next();
+                    double lag = rs.getDouble(1);
+                    replica.lagSeconds = rs.wasNull() ? Double.POSITIVE_INFINITY : lag;
+                }
+                healthy = replica.lagSeconds * 1000 <= maxLag.toMillis();
+            } catch (SQLException | RuntimeException e) {
+                log.debug("Health check of replica {} failed", replica.name, e);
+                healthy = false;
+            }
+            if (healthy != replica.healthy) {
+                log.warn(
+                        "Replica {} is now {} (lag {} s)",
+                        replica.name,
+                        healthy ? "used for reads" : "skipped",
+                        replica.lagSeconds);
+            }
+            replica.healthy = healthy;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (checker != null) {
+            checker.shutdownNow();
+        }
+        replicas.forEach(r -> closeQuietly(r.dataSource));
+        closeQuietly(getTargetDataSource());
+    }
+
+    private static void closeQuietly(DataSource dataSource) {
+        if (dataSource instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                log.warn("Failed to close {}", dataSource, e);
+            }
+        }
+    }
+
+    private static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean healthy;
+        private volatile double lagSeconds;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+
+    /** The data source behind read-only connections. */
+    private final class ReplicaSelector extends AbstractDataSource {
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (PRIMARY_ONLY.get() == null) {
+                int start = next.getAndIncrement();
+                for (int i = 0; i < replicas.size(); i++) {
+                    Replica replica = replicas.get(Math.floorMod(start + i, replicas.size()));
+                    if (replica.healthy) {
+                        try {
+                            return replica.dataSource.getConnection();
+                        } catch (SQLException e) {
+                            // Skipped until its next successful check
+                            log.warn("Replica {} is unavailable", replica.name, e);
+                            replica.healthy = false;
+                        }
+                    }
+                }
+            }
+            return obtainTargetDataSource().getConnection();
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return getConnection();
+        }
+    }
+}
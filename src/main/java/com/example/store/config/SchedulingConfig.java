@@ -0,0 +1,9 @@
+package com.example.store.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/** Runs the {@code @Scheduled} refreshes, such as the one behind {@code GET /stats}. */
+@Configuration(proxyBeanMethods = false)
+@EnableScheduling
+public class SchedulingConfig {}
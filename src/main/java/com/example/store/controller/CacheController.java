@@ -0,0 +1,41 @@
+package com.example.store.controller;
+
+import com.example.store.cache.DtoCache;
+import com.example.store.dto.CacheStatsDTO;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/v1/cache")
+@RequiredArgsConstructor
+public class CacheController {
+
+    private static final double NANOS_PER_MILLI = 1_000_000d;
+
+    private final DtoCache dtoCache;
+
+    @GetMapping("/stats")
+    public Map<String, CacheStatsDTO> getStats() {
+        Map<String, Long> sizes = dtoCache.sizes();
+        Map<String, CacheStatsDTO> result = new LinkedHashMap<>();
+        dtoCache.stats()
+                .forEach((name, stats) -> result.put(
+                        name,
+                        new CacheStatsDTO(
+                                sizes.get(name),
+                                stats.hitCount(),
+                                stats.missCount(),
+                                stats.hitRate(),
+                                stats.evictionCount(),
+                                stats.loadFailureCount(),
+                                stats.averageLoadPenalty() / NANOS_PER_MILLI)));
+        return result;
+    }
+}
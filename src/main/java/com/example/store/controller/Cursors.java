@@ -0,0 +1,52 @@
+package com.example.store.controller;
+
+import com.example.store.dto.CursorPageDTO;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/** Encoding of the opaque {@code after} cursors used by the keyset (cursor) mode of the list endpoints. */
+final class Cursors {
+
+    static final int MAX_LIMIT = 100;
+
+    private Cursors() {}
+
+    static int clampLimit(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+
+    static String encode(Long id) {
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString(Long.toString(id).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    static Long decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.valueOf(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII));
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+
+    /**
+     * Builds a page from {@code rows}, which the caller fetched with {@code limit + 1} so that the presence of the
+     * extra row tells us whether a next page exists without a count query.
+     */
+    static <T> CursorPageDTO<T> page(List<T> rows, int limit, Function<T, Long> idOf) {
+        if (rows.size() <= limit) {
+            return new CursorPageDTO<>(rows, null);
+        }
+        List<T> content = rows.subList(0, limit);
+        return new CursorPageDTO<>(content, encode(idOf.apply(content.get(limit - 1))));
+    }
+}
@@ -1,9 +1,15 @@
 package com.example.store.controller;
 
+import com.example.store.dto.CursorPageDTO;
 import com.example.store.dto.CustomerDTO;
-import com.example.store.entity.Customer;
-import com.example.store.mapper.CustomerMapper;
+import com.example.store.dto.CustomerOrderDTO;
+import com.example.store.dto.CustomerSummaryDTO;
 import com.example.store.repository.CustomerRepository;
+import com.example.store.search.CustomerNameIndex;
+import com.example.store.service.CountMode;
+import com.example.store.service.CustomerService;
+import com.example.store.service.OrdersMode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
@@ -11,47 +17,190 @@ import jakarta.validation.constraints.Size;
 
 import lombok.RequiredArgsConstructor;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/v1/customers")
 @RequiredArgsConstructor
 public class CustomerController {
 
-    private final CustomerRepository customerRepository;
-    private final CustomerMapper customerMapper;
+    private static final int MAX_SEARCH_PAGE_SIZE = 50;
+
+    private static final Fields FIELDS =
+            new Fields(List.of("id", "name", "orders", "orderCount"), Map.of("orders", "orders"));
+
+    private final CustomerService customerService;
+    private final ObjectProvider<CustomerNameIndex> customerNameIndex;
+    private final ObjectMapper objectMapper;
+
+    /** Used when a request has no {@code orders} parameter. */
+    @Value("${store.customers.orders:all}")
+    private OrdersMode defaultOrders;
+
+    /** Used when a list request has no {@code count} parameter. */
+    @Value("${store.listing.count:exact}")
+    private CountMode defaultCount;
 
     @GetMapping
-    public Page<CustomerDTO> getCustomers(Pageable pageable) {
+    public Slice<?> getCustomers(
+            Pageable pageable,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) OrdersMode orders,
+            @RequestParam(required = false) CountMode count) {
+        Fields.Selection selection = FIELDS.parse(fields);
+        OrdersMode mode = orders != null ? orders : defaultOrders;
+        CountMode countMode = count != null ? count : defaultCount;
         Pageable pageableWithSort = PageRequest.of(
                 pageable.getPageNumber(), pageable.getPageSize(), Sort.by("id").descending());
-        return customerRepository.findAll(pageableWithSort).map(customerMapper::toDto);
+        if (selection == null && mode == OrdersMode.ALL) {
+            return customerService.findPage(pageableWithSort, countMode);
+        }
+        Slice<CustomerDTO> page = customerService.findPage(
+                pageableWithSort, associations(selection, mode), fill(selection, mode), countMode);
+        return selection == null ? page : page.map(dto -> selection.apply(objectMapper, dto));
+    }
+
+    @GetMapping(params = "limit")
+    public CursorPageDTO<?> getCustomersAfter(
+            @RequestParam(required = false) String after,
+            @RequestParam int limit,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) OrdersMode orders) {
+        Fields.Selection selection = FIELDS.parse(fields);
+        OrdersMode mode = orders != null ? orders : defaultOrders;
+        int size = Cursors.clampLimit(limit);
+        Long cursor = Cursors.decode(after);
+        if (selection == null && mode == OrdersMode.ALL) {
+            return Cursors.page(customerService.findBefore(cursor, size + 1), size, CustomerDTO::getId);
+        }
+        List<CustomerDTO> rows = customerService.findBefore(
+                cursor, size + 1, associations(selection, mode), fill(selection, mode));
+        var page = Cursors.page(rows, size, CustomerDTO::getId);
+        return selection == null ? page : page.map(dto -> selection.apply(objectMapper, dto));
+    }
+
+    /**
+     * A matching {@code If-None-Match} is answered from the version and the state of the customer's orders, without
+     * loading the customer.
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getCustomer(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) OrdersMode orders) {
+        Fields.Selection selection = FIELDS.parse(fields);
+        OrdersMode mode = orders != null ? orders : defaultOrders;
+        if (ifNoneMatch != null) {
+            String etag = etag(
+                    customerService
+                            .findVersion(id)
+                            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND)),
+                    selection,
+                    mode);
+            if (ETags.matches(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+        }
+        CustomerDTO customer = customerService
+                .findById(id, associations(selection, mode), fill(selection, mode))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        return ResponseEntity.ok()
+                .eTag(etag(customer, selection, mode))
+                .body(selection == null ? customer : selection.apply(objectMapper, customer));
     }
 
+    /** Keyset page of the customer's orders, newest first, served by {@code idx_order_customer_id}. */
+    @GetMapping("/{id}/orders")
+    public CursorPageDTO<CustomerOrderDTO> getCustomerOrders(
+            @PathVariable Long id,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") int limit) {
+        int size = Cursors.clampLimit(limit);
+        Long cursor = Cursors.decode(after);
+        return Cursors.page(customerService.findOrders(id, cursor, size + 1), size, CustomerOrderDTO::getId);
+    }
+
+    /**
+     * At most {@link CustomerRepository#MAX_SEARCH_RESULTS} matches are served, and the total never exceeds it; pages
+     * past it are empty but report the same total.
+     */
     @GetMapping("/search")
-    public List<CustomerDTO> searchCustomers(@RequestParam("q") @NotBlank @Size(min = 1) String q) {
-        return customerRepository.searchByNameSubstring(q).stream()
-                .map(customerMapper::toDto)
-                .toList();
+    public Page<CustomerSummaryDTO> searchCustomers(
+            @RequestParam("q") @NotBlank @Size(min = 1) String q, Pageable pageable) {
+        Pageable bounded =
+                PageRequest.of(pageable.getPageNumber(), Math.min(pageable.getPageSize(), MAX_SEARCH_PAGE_SIZE));
+        CustomerNameIndex index = customerNameIndex.getIfAvailable();
+        if (index == null || !index.isReady() || q.length() < CustomerNameIndex.MIN_QUERY_LENGTH) {
+            return customerService.searchByName(q, bounded);
+        }
+        int from = (int) Math.min(bounded.getOffset(), CustomerRepository.MAX_SEARCH_RESULTS);
+        int to = Math.min(from + bounded.getPageSize(), CustomerRepository.MAX_SEARCH_RESULTS);
+        CustomerNameIndex.Matches matches = index.search(q, to);
+        List<CustomerSummaryDTO> best = matches.customers();
+        return new PageImpl<>(
+                best.subList(Math.min(from, best.size()), best.size()),
+                bounded,
+                Math.min(matches.total(), CustomerRepository.MAX_SEARCH_RESULTS));
     }
 
     @PostMapping
     public ResponseEntity<Void> createCustomer(@Valid @RequestBody CustomerDTO customerDto) {
-        Customer customer = customerMapper.toEntity(customerDto);
-        customerRepository.save(customer);
+        Long id = customerService.create(customerDto);
+        customerNameIndex.ifAvailable(index -> index.add(id, customerDto.getName()));
         URI location = ServletUriComponentsBuilder.fromCurrentRequest()
                 .path("/{id}")
-                .buildAndExpand(customer.getId())
+                .buildAndExpand(id)
                 .toUri();
         return ResponseEntity.created(location).build();
     }
+
+    /**
+     * Creating an order never updates the customer row, so the state of its orders goes into the ETag as well, and so
+     * does the orders mode, since each one is a different body for the same customer.
+     */
+    private static String etag(CustomerDTO customer, Fields.Selection selection, OrdersMode mode) {
+        if (customer.getOrderState() == null) {
+            return null;
+        }
+        List<Long> state = new ArrayList<>(customer.getOrderState());
+        state.add((long) mode.name().hashCode());
+        return ETags.of(ETags.of(customer.getVersion(), state), selection);
+    }
+
+    /** Only {@code ?orders=all} fetches the {@code orders} association; the other modes never load it. */
+    private static List<String> associations(Fields.Selection selection, OrdersMode mode) {
+        if (mode != OrdersMode.ALL) {
+            return List.of();
+        }
+        return selection == null ? List.of("orders") : selection.associations();
+    }
+
+    /** Previews and counts are skipped when the selection leaves out both {@code orders} and {@code orderCount}. */
+    private static OrdersMode fill(Fields.Selection selection, OrdersMode mode) {
+        if (selection != null
+                && !selection.fields().contains("orders")
+                && !selection.fields().contains("orderCount")) {
+            return OrdersMode.ALL;
+        }
+        return mode;
+    }
 }
@@ -0,0 +1,63 @@
+package com.example.store.controller;
+
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Strong ETags derived from an entity's {@code @Version}, plus whatever else the representation embeds that doesn't
+ * update the entity's row and the selected fields of a sparse fieldset, and {@code If-None-Match} matching.
+ */
+final class ETags {
+
+    private ETags() {}
+
+    /** Null (no ETag) for DTOs that were not loaded from the database. */
+    static String of(Long version) {
+        return version == null ? null : "\"" + version + "\"";
+    }
+
+    /**
+     * For representations that embed rows of other tables (such as a product's newest order ids): the version and a
+     * 64-bit FNV-1a hash of {@code dependencies}, which must be read in the same order every time.
+     */
+    static String of(Long version, List<Long> dependencies) {
+        if (version == null) {
+            return null;
+        }
+        long hash = 0xcbf29ce484222325L;
+        for (Long value : dependencies) {
+            hash = (hash ^ (value == null ? 0 : value)) * 0x100000001b3L;
+        }
+        return "\"" + version + "-" + Long.toHexString(hash) + "\"";
+    }
+
+    /**
+     * The ETag of a sparse fieldset ({@code ?fields=}), which is a different representation than the full one and
+     * must not validate a cached copy of it: {@code etag} with a hash of the selected fields, taken in a fixed order
+     * since the order they are asked for doesn't change the response. Unchanged for the full representation.
+     */
+    static String of(String etag, Fields.Selection selection) {
+        if (etag == null || selection == null) {
+            return etag;
+        }
+        long hash = 0xcbf29ce484222325L;
+        for (String field : new TreeSet<>(selection.fields())) {
+            hash = (hash ^ field.hashCode()) * 0x100000001b3L;
+        }
+        return etag.substring(0, etag.length() - 1) + "-f" + Long.toHexString(hash) + "\"";
+    }
+
+    /** Weak comparison, as RFC 9110 requires for {@code If-None-Match}. */
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || (tag.startsWith("W/") ? tag.substring(2) : tag).equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.store.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The fields a resource exposes to sparse fieldsets ({@code ?fields=id,description}). Association fields map to the
+ * entity attribute that has to be fetched for them; {@code id} is always returned.
+ */
+final class Fields {
+
+    private final List<String> names;
+    private final Map<String, String> associations;
+
+    Fields(List<String> names, Map<String, String> associations) {
+        this.names = names;
+        this.associations = associations;
+    }
+
+    /** Returns {@code null} when no {@code fields} parameter was given, meaning the full representation. */
+    Selection parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return null;
+        }
+        Set<String> selected = new LinkedHashSet<>();
+        selected.add("id");
+        List<String> fetch = new ArrayList<>();
+        for (String part : fields.split(",")) {
+            String field = part.trim();
+            if (field.isEmpty()) {
+                continue;
+            }
+            if (!names.contains(field)) {
+                throw new ResponseStatusException(
+                        HttpStatus.BAD_REQUEST, "Unknown field '" + field + "', expected any of " + names);
+            }
+            if (selected.add(field) && associations.containsKey(field)) {
+                fetch.add(associations.get(field));
+            }
+        }
+        return new Selection(selected, fetch);
+    }
+
+    /** The requested JSON fields, and the associations to fetch for them. */
+    record Selection(Set<String> fields, List<String> associations) {
+
+        JsonNode apply(ObjectMapper objectMapper, Object dto) {
+            ObjectNode node = objectMapper.valueToTree(dto);
+            node.retain(fields);
+            return node;
+        }
+    }
+}
@@ -1,56 +1,164 @@
 package com.example.store.controller;
 
+import com.example.store.cache.DtoCache;
+import com.example.store.dto.CursorPageDTO;
+import com.example.store.dto.OrderBatchResponseDTO;
 import com.example.store.dto.OrderDTO;
-import com.example.store.entity.Order;
-import com.example.store.mapper.OrderMapper;
-import com.example.store.repository.OrderRepository;
+import com.example.store.dto.OrderSubmissionDTO;
+import com.example.store.service.CountMode;
+import com.example.store.service.OrderBatchService;
+import com.example.store.service.OrderExportService;
+import com.example.store.service.OrderService;
+import com.example.store.service.OrderSubmissionQueue;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 
 import lombok.RequiredArgsConstructor;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/v1/orders")
 @RequiredArgsConstructor
 public class OrderController {
 
-    private final OrderRepository orderRepository;
-    private final OrderMapper orderMapper;
+    private static final Fields FIELDS = new Fields(
+            List.of("id", "description", "customer", "products"),
+            Map.of("customer", "customer", "products", "products"));
+
+    private final OrderService orderService;
+    private final OrderExportService orderExportService;
+    private final OrderBatchService orderBatchService;
+    private final DtoCache dtoCache;
+    private final ObjectMapper objectMapper;
+    private final ObjectProvider<OrderSubmissionQueue> orderSubmissionQueue;
+
+    /** Used when a list request has no {@code count} parameter. */
+    @Value("${store.listing.count:exact}")
+    private CountMode defaultCount;
+
+    /** How long {@code /export} may stream. */
+    @Value("${store.orders.export.timeout:30m}")
+    private Duration exportTimeout;
 
     @GetMapping
-    public Page<OrderDTO> getOrders(Pageable pageable) {
+    public Slice<?> getOrders(
+            Pageable pageable,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) CountMode count) {
+        Fields.Selection selection = FIELDS.parse(fields);
+        CountMode countMode = count != null ? count : defaultCount;
         Pageable pageableWithSort = PageRequest.of(
                 pageable.getPageNumber(), pageable.getPageSize(), Sort.by("id").descending());
-        return orderRepository.findAll(pageableWithSort).map(orderMapper::toDto);
+        if (selection == null) {
+            return orderService.findPage(pageableWithSort, countMode);
+        }
+        return orderService
+                .findPage(pageableWithSort, selection.associations(), countMode)
+                .map(dto -> selection.apply(objectMapper, dto));
+    }
+
+    @GetMapping(params = "limit")
+    public CursorPageDTO<?> getOrdersAfter(
+            @RequestParam(required = false) String after,
+            @RequestParam int limit,
+            @RequestParam(required = false) String fields) {
+        Fields.Selection selection = FIELDS.parse(fields);
+        int size = Cursors.clampLimit(limit);
+        Long cursor = Cursors.decode(after);
+        if (selection == null) {
+            return Cursors.page(orderService.findBefore(cursor, size + 1), size, OrderDTO::getId);
+        }
+        List<OrderDTO> rows = orderService.findBefore(cursor, size + 1, selection.associations());
+        return Cursors.page(rows, size, OrderDTO::getId).map(dto -> selection.apply(objectMapper, dto));
     }
 
+    /**
+     * Streams for as long as the table takes to read, so it has a timeout of its own
+     * ({@code store.orders.export.timeout}) instead of the global {@code spring.mvc.async.request-timeout}. Written
+     * straight to the response from an async task, since a {@code StreamingResponseBody} always gets the global one.
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public WebAsyncTask<Void> exportOrders(HttpServletResponse response) {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        return new WebAsyncTask<>(exportTimeout.toMillis(), () -> {
+            orderExportService.exportTo(response.getOutputStream());
+            return null;
+        });
+    }
+
+    /** A matching {@code If-None-Match} is answered from the version column alone, without loading the order. */
     @GetMapping("/{id}")
-    public OrderDTO getOrder(@PathVariable Long id) {
-        Order order = orderRepository.findById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
-        return orderMapper.toDto(order);
+    public ResponseEntity<?> getOrder(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestParam(required = false) String fields) {
+        Fields.Selection selection = FIELDS.parse(fields);
+        if (ifNoneMatch != null) {
+            String etag = ETags.of(
+                    ETags.of(orderService
+                            .findVersion(id)
+                            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND))),
+                    selection);
+            if (ETags.matches(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+        }
+        // A cached full DTO also serves any subset; on a miss a subset is loaded with just its associations
+        OrderDTO order = selection == null ? dtoCache.getOrder(id) : dtoCache.peekOrder(id);
+        if (order == null && selection != null) {
+            order = orderService.findById(id, selection.associations()).orElse(null);
+        }
+        if (order == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
+        return ResponseEntity.ok()
+                .eTag(ETags.of(ETags.of(order.getVersion()), selection))
+                .body(selection == null ? order : selection.apply(objectMapper, order));
     }
 
+    /**
+     * With {@code store.orders.async.enabled} the order is only queued and the response is {@code 202} with the URL of
+     * its submission status; otherwise it is created before responding.
+     */
     @PostMapping
-    public ResponseEntity<Void> createOrder(@Valid @RequestBody OrderDTO orderDto) {
+    public ResponseEntity<?> createOrder(@Valid @RequestBody OrderDTO orderDto) {
+        OrderSubmissionQueue queue = orderSubmissionQueue.getIfAvailable();
+        if (queue != null) {
+            String id = queue.submit(orderDto);
+            URI location = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .path("/submissions/{id}")
+                    .buildAndExpand(id)
+                    .toUri();
+            return ResponseEntity.accepted().location(location).body(OrderSubmissionDTO.pending(id));
+        }
         try {
-            Order order = orderMapper.toEntity(orderDto);
-            orderRepository.save(order);
+            Long id = orderService.create(orderDto);
+            dtoCache.invalidateProducts(OrderService.productIds(List.of(orderDto)));
             URI location = ServletUriComponentsBuilder.fromCurrentRequest()
                     .path("/{id}")
-                    .buildAndExpand(order.getId())
+                    .buildAndExpand(id)
                     .toUri();
             return ResponseEntity.created(location).build();
         } catch (DataIntegrityViolationException ex) {
@@ -58,4 +166,21 @@ public class OrderController {
                     HttpStatus.BAD_REQUEST, "Request body contains invalid or missing customer/product id's");
         }
     }
+
+    @GetMapping("/submissions/{id}")
+    public OrderSubmissionDTO getSubmission(@PathVariable String id) {
+        OrderSubmissionQueue queue = orderSubmissionQueue.getIfAvailable();
+        OrderSubmissionDTO submission = queue == null ? null : queue.status(id);
+        if (submission == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
+        return submission;
+    }
+
+    @PostMapping("/batch")
+    public OrderBatchResponseDTO createOrders(@RequestBody List<OrderDTO> orderDtos) {
+        OrderBatchResponseDTO response = orderBatchService.createAll(orderDtos);
+        dtoCache.invalidateProducts(OrderService.productIds(orderDtos));
+        return response;
+    }
 }
@@ -1,18 +1,23 @@
 package com.example.store.controller;
 
+import com.example.store.cache.DtoCache;
+import com.example.store.dto.CursorPageDTO;
 import com.example.store.dto.ProductDTO;
-import com.example.store.entity.Product;
-import com.example.store.mapper.ProductMapper;
-import com.example.store.repository.ProductRepository;
+import com.example.store.repository.OrderIdPreviews;
+import com.example.store.service.CountMode;
+import com.example.store.service.ProductService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import jakarta.validation.Valid;
 
 import lombok.RequiredArgsConstructor;
 
-import org.springframework.data.domain.Page;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -20,37 +25,120 @@ import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 
 @RestController
 @RequestMapping("/api/v1/products")
 @RequiredArgsConstructor
 public class ProductController {
 
-    private final ProductMapper productMapper;
-    private final ProductRepository productRepository;
+    /** {@code orderIds} is not an association of the loaded entity; it is filled by {@link OrderIdPreviews}. */
+    private static final Fields FIELDS = new Fields(List.of("id", "description", "orderIds"), Map.of());
+
+    private final ProductService productService;
+    private final DtoCache dtoCache;
+    private final ObjectMapper objectMapper;
+
+    /** Used when a list request has no {@code count} parameter. */
+    @Value("${store.listing.count:exact}")
+    private CountMode defaultCount;
 
     @GetMapping
-    public Page<ProductDTO> getProducts(Pageable pageable) {
+    public Slice<?> getProducts(
+            Pageable pageable,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) CountMode count) {
+        Fields.Selection selection = FIELDS.parse(fields);
+        CountMode countMode = count != null ? count : defaultCount;
         Pageable pageableWithSort = PageRequest.of(
                 pageable.getPageNumber(), pageable.getPageSize(), Sort.by("id").descending());
-        return productRepository.findAll(pageableWithSort).map(productMapper::toDto);
+        if (selection == null) {
+            return productService.findPage(pageableWithSort, countMode);
+        }
+        return productService
+                .findPage(pageableWithSort, withOrderIds(selection), countMode)
+                .map(dto -> selection.apply(objectMapper, dto));
     }
 
+    @GetMapping(params = "limit")
+    public CursorPageDTO<?> getProductsAfter(
+            @RequestParam(required = false) String after,
+            @RequestParam int limit,
+            @RequestParam(required = false) String fields) {
+        Fields.Selection selection = FIELDS.parse(fields);
+        int size = Cursors.clampLimit(limit);
+        Long cursor = Cursors.decode(after);
+        if (selection == null) {
+            return Cursors.page(productService.findBefore(cursor, size + 1), size, ProductDTO::getId);
+        }
+        List<ProductDTO> rows = productService.findBefore(cursor, size + 1, withOrderIds(selection));
+        return Cursors.page(rows, size, ProductDTO::getId).map(dto -> selection.apply(objectMapper, dto));
+    }
+
+    /**
+     * The ETag covers the version and the {@code orderIds} preview, so a matching {@code If-None-Match} is answered
+     * from one short index scan, without loading the product.
+     */
     @GetMapping("/{id}")
-    public ProductDTO getProduct(@PathVariable Long id) {
-        var product =
-                productRepository.findById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
-        return productMapper.toDto(product);
+    public ResponseEntity<?> getProduct(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestParam(required = false) String fields) {
+        Fields.Selection selection = FIELDS.parse(fields);
+        if (ifNoneMatch != null) {
+            String etag = etag(
+                    productService
+                            .findVersion(id, withOrderIds(selection))
+                            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND)),
+                    selection);
+            if (ETags.matches(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+        }
+        // A cached full DTO also serves any subset; on a miss a subset only reads the order ids when asked for
+        ProductDTO product = selection == null ? dtoCache.getProduct(id) : dtoCache.peekProduct(id);
+        if (product == null && selection != null) {
+            product = productService.findById(id, withOrderIds(selection)).orElse(null);
+        }
+        if (product == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
+        return ResponseEntity.ok()
+                .eTag(etag(product, selection))
+                .body(selection == null ? product : selection.apply(objectMapper, product));
+    }
+
+    /** Keyset page of the ids of the orders containing the product, newest first. */
+    @GetMapping("/{id}/orders")
+    public CursorPageDTO<Long> getProductOrders(
+            @PathVariable Long id,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") int limit) {
+        int size = Cursors.clampLimit(limit);
+        Long cursor = Cursors.decode(after);
+        return Cursors.page(productService.findOrderIds(id, cursor, size + 1), size, Function.identity());
     }
 
     @PostMapping
     public ResponseEntity<Void> createProduct(@Valid @RequestBody ProductDTO productDto) {
-        Product product = productMapper.toEntity(productDto);
-        productRepository.save(product);
+        Long id = productService.create(productDto);
         URI location = ServletUriComponentsBuilder.fromCurrentRequest()
                 .path("/{id}")
-                .buildAndExpand(product.getId())
+                .buildAndExpand(id)
                 .toUri();
         return ResponseEntity.created(location).build();
     }
+
+    /** A product's order ids change without its row changing, so they are part of its ETag when they are served. */
+    private static String etag(ProductDTO product, Fields.Selection selection) {
+        boolean withOrderIds = withOrderIds(selection) && product.getOrderIds() != null;
+        return ETags.of(ETags.of(product.getVersion(), withOrderIds ? product.getOrderIds() : List.of()), selection);
+    }
+
+    /** The order id previews cost a statement, so they are only read for the full representation or when selected. */
+    private static boolean withOrderIds(Fields.Selection selection) {
+        return selection == null || selection.fields().contains("orderIds");
+    }
 }
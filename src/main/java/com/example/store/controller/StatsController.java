@@ -0,0 +1,30 @@
+package com.example.store.controller;
+
+import com.example.store.dto.StatsDTO;
+import com.example.store.stats.StoreStatistics;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+/** Store-wide aggregates, served from the last snapshot of {@link StoreStatistics} without touching the database. */
+@RestController
+@RequestMapping("/api/v1/stats")
+@RequiredArgsConstructor
+public class StatsController {
+
+    private final StoreStatistics storeStatistics;
+
+    @GetMapping
+    public StatsDTO getStats() {
+        StatsDTO stats = storeStatistics.snapshot();
+        if (stats == null) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Statistics are not loaded yet");
+        }
+        return stats;
+    }
+}
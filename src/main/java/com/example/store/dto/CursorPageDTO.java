@@ -0,0 +1,24 @@
+package com.example.store.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A keyset page: the rows plus an opaque cursor for the next page, or {@code null} when there are no more rows. Unlike
+ * {@link org.springframework.data.domain.Page} it carries no totals, so producing one never needs a count query.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageDTO<T> {
+    private List<T> content;
+    private String nextCursor;
+
+    public <R> CursorPageDTO<R> map(Function<? super T, ? extends R> converter) {
+        return new CursorPageDTO<>(content.stream().<R>map(converter).toList(), nextCursor);
+    }
+}
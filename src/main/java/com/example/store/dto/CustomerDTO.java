@@ -1,5 +1,8 @@
 package com.example.store.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import jakarta.validation.constraints.NotBlank;
 
 import lombok.Data;
@@ -13,5 +16,19 @@ public class CustomerDTO {
     @NotBlank(message = "name is required")
     private String name;
 
+    /** All orders, or only the newest ones with {@code ?orders=preview}; absent with {@code ?orders=count}. */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private List<CustomerOrderDTO> orders;
+
+    /** Only with {@code ?orders=count}. */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long orderCount;
+
+    /** Source of the ETag header; not part of the JSON body. */
+    @JsonIgnore
+    private Long version;
+
+    /** The state of the customer's orders that goes into the ETag with {@code version}; not part of the JSON body. */
+    @JsonIgnore
+    private List<Long> orderState;
 }
@@ -0,0 +1,14 @@
+package com.example.store.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerOrderCountDTO {
+    private Long id;
+    private String name;
+    private long orderCount;
+}
@@ -0,0 +1,14 @@
+package com.example.store.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** A customer without its orders, as returned by search. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerSummaryDTO {
+    private Long id;
+    private String name;
+}
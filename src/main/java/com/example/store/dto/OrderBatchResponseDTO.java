@@ -0,0 +1,16 @@
+package com.example.store.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderBatchResponseDTO {
+    private int created;
+    private int rejected;
+    private List<OrderBatchResultDTO> results;
+}
@@ -0,0 +1,29 @@
+package com.example.store.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** Outcome of one order of a batch submission; {@code index} is its position in the request body. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderBatchResultDTO {
+    public enum Status {
+        CREATED,
+        REJECTED
+    }
+
+    private int index;
+    private Status status;
+    private Long id;
+    private String message;
+
+    public static OrderBatchResultDTO created(int index, Long id) {
+        return new OrderBatchResultDTO(index, Status.CREATED, id, null);
+    }
+
+    public static OrderBatchResultDTO rejected(int index, String message) {
+        return new OrderBatchResultDTO(index, Status.REJECTED, null, message);
+    }
+}
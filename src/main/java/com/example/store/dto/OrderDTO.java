@@ -1,5 +1,7 @@
 package com.example.store.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
@@ -19,4 +21,8 @@ public class OrderDTO {
 
     @NotEmpty(message = "Order must contain at least one product")
     private List<OrderProductDTO> products;
+
+    /** Source of the ETag header; not part of the JSON body. */
+    @JsonIgnore
+    private Long version;
 }
@@ -0,0 +1,27 @@
+package com.example.store.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** State of an order accepted with {@code 202}; {@code orderId} is set once it is created. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSubmissionDTO {
+    public enum Status {
+        PENDING,
+        CREATED,
+        REJECTED,
+        FAILED
+    }
+
+    private String id;
+    private Status status;
+    private Long orderId;
+    private String message;
+
+    public static OrderSubmissionDTO pending(String id) {
+        return new OrderSubmissionDTO(id, Status.PENDING, null, null);
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.store.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import jakarta.validation.constraints.NotBlank;
 
 import lombok.Data;
@@ -14,4 +16,8 @@ public class ProductDTO {
     private String description;
 
     private List<Long> orderIds;
+
+    /** Source of the ETag header; not part of the JSON body. */
+    @JsonIgnore
+    private Long version;
 }
@@ -0,0 +1,14 @@
+package com.example.store.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductOrderCountDTO {
+    private Long id;
+    private String description;
+    private long orderCount;
+}
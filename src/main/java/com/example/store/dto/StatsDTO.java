@@ -0,0 +1,25 @@
+package com.example.store.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+/** Store-wide totals and the most ordered products and most active customers, as of {@code refreshedAt}. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatsDTO {
+    private long customers;
+    private long orders;
+    private long products;
+    /** Order/product links, i.e. the number of product lines over all orders. */
+    private long orderLines;
+
+    private double averageOrdersPerCustomer;
+    private List<ProductOrderCountDTO> topProducts;
+    private List<CustomerOrderCountDTO> topCustomers;
+    private Instant refreshedAt;
+}
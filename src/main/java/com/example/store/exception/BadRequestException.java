@@ -0,0 +1,9 @@
+package com.example.store.exception;
+
+/** The request is well-formed but cannot be processed as sent; answered with {@code 400}. */
+public class BadRequestException extends RuntimeException {
+
+    public BadRequestException(String message) {
+        super(message);
+    }
+}
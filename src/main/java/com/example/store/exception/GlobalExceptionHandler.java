@@ -3,11 +3,13 @@ package com.example.store.exception;
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.LinkedHashMap;
@@ -41,12 +43,33 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(ResponseStatusException.class)
     public ResponseEntity<Map<String, Object>> handleRse(ResponseStatusException ex) {
-        return ResponseEntity.status(ex.getStatusCode())
-                .body(Map.of(
-                        ERROR,
-                        ex.getStatusCode().toString(),
-                        MESSAGE,
-                        ex.getReason() == null ? ERROR : ex.getReason()));
+        return status(ex.getStatusCode(), ex.getReason());
+    }
+
+    @ExceptionHandler(NotFoundException.class)
+    public ResponseEntity<Map<String, Object>> handleNotFound(NotFoundException ex) {
+        return status(HttpStatus.NOT_FOUND, ex.getMessage());
+    }
+
+    @ExceptionHandler(BadRequestException.class)
+    public ResponseEntity<Map<String, Object>> handleBadRequest(BadRequestException ex) {
+        return status(HttpStatus.BAD_REQUEST, ex.getMessage());
+    }
+
+    /** Request parameters that don't convert, such as an unknown {@code ?count=} mode. */
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    public ResponseEntity<Map<String, Object>> handleTypeMismatch(MethodArgumentTypeMismatchException ex) {
+        return status(HttpStatus.BAD_REQUEST, ex.getMostSpecificCause().getMessage());
+    }
+
+    @ExceptionHandler(SubmissionRejectedException.class)
+    public ResponseEntity<Map<String, Object>> handleSubmissionRejected(SubmissionRejectedException ex) {
+        return status(
+                switch (ex.getReason()) {
+                    case QUEUE_FULL -> HttpStatus.TOO_MANY_REQUESTS;
+                    case SHUTTING_DOWN -> HttpStatus.SERVICE_UNAVAILABLE;
+                },
+                ex.getMessage());
     }
 
     @ExceptionHandler(Exception.class)
@@ -54,4 +77,9 @@ public class GlobalExceptionHandler {
     public Map<String, Object> handleGeneric(Exception ex) {
         return Map.of(ERROR, "unexpected_error", MESSAGE, ex.getMessage());
     }
+
+    private static ResponseEntity<Map<String, Object>> status(HttpStatusCode status, String message) {
+        return ResponseEntity.status(status)
+                .body(Map.of(ERROR, status.toString(), MESSAGE, message == null ? ERROR : message));
+    }
 }
@@ -0,0 +1,13 @@
+package com.example.store.exception;
+
+/** The requested resource does not exist; answered with {@code 404}. */
+public class NotFoundException extends RuntimeException {
+
+    public NotFoundException() {
+        super();
+    }
+
+    public NotFoundException(String message) {
+        super(message);
+    }
+}
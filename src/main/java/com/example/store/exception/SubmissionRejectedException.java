@@ -0,0 +1,23 @@
+package com.example.store.exception;
+
+import lombok.Getter;
+
+/**
+ * An order submission was not queued; answered with {@code 429} when the queue is full and {@code 503} while the
+ * application is shutting down.
+ */
+@Getter
+public class SubmissionRejectedException extends RuntimeException {
+
+    public enum Reason {
+        QUEUE_FULL,
+        SHUTTING_DOWN
+    }
+
+    private final Reason reason;
+
+    public SubmissionRejectedException(Reason reason, String message) {
+        super(message);
+        this.reason = reason;
+    }
+}
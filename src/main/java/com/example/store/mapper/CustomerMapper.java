@@ -1,19 +1,30 @@
 package com.example.store.mapper;
 
 import com.example.store.dto.CustomerDTO;
+import com.example.store.dto.CustomerOrderDTO;
+import com.example.store.dto.CustomerSummaryDTO;
 import com.example.store.entity.Customer;
+import com.example.store.repository.CustomerNameView;
+import com.example.store.repository.CustomerOrderView;
 
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 
 @Mapper(
         componentModel = "spring",
-        uses = {OrderMapper.class})
+        uses = {OrderMapper.class, LazyLoading.class})
 public interface CustomerMapper {
     @Mapping(target = "orders", source = "orders")
+    @Mapping(target = "orderCount", ignore = true)
+    @Mapping(target = "orderState", ignore = true)
     CustomerDTO toDto(Customer customer);
 
+    CustomerOrderDTO toOrderDto(CustomerOrderView order);
+
+    CustomerSummaryDTO toSummaryDto(CustomerNameView customer);
+
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "orders", ignore = true)
+    @Mapping(target = "version", ignore = true)
     Customer toEntity(CustomerDTO customerDto);
 }
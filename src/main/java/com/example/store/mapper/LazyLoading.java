@@ -0,0 +1,29 @@
+package com.example.store.mapper;
+
+import com.example.store.entity.Customer;
+
+import org.hibernate.Hibernate;
+
+import org.mapstruct.Condition;
+
+import java.util.Collection;
+
+/**
+ * MapStruct conditions that skip associations Hibernate has not loaded, so mapping an entity never triggers a lazy
+ * load. What gets mapped is decided by what the query fetched (an {@code @EntityGraph}, or the fetch graph of a sparse
+ * fieldset); skipped associations are left {@code null} in the DTO.
+ */
+public final class LazyLoading {
+
+    private LazyLoading() {}
+
+    @Condition
+    public static boolean isLoaded(Collection<?> association) {
+        return Hibernate.isInitialized(association);
+    }
+
+    @Condition
+    public static boolean isLoaded(Customer association) {
+        return Hibernate.isInitialized(association);
+    }
+}
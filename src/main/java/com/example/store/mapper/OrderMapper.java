@@ -12,13 +12,15 @@ import org.mapstruct.Mapping;
 
 @Mapper(
         componentModel = "spring",
-        uses = {CustomerMapper.class, ProductMapper.class})
+        uses = {CustomerMapper.class, ProductMapper.class, LazyLoading.class})
 public interface OrderMapper {
 
     @Mapping(target = "orders", ignore = true)
+    @Mapping(target = "version", ignore = true)
     Product toProduct(OrderProductDTO dto);
 
     @Mapping(target = "orders", ignore = true)
+    @Mapping(target = "version", ignore = true)
     Customer toCustomer(OrderCustomerDTO dto);
 
     @Mapping(target = "customer", source = "customer")
@@ -26,5 +28,6 @@ public interface OrderMapper {
     OrderDTO toDto(Order order);
 
     @Mapping(target = "id", ignore = true)
+    @Mapping(target = "version", ignore = true)
     Order toEntity(OrderDTO orderDto);
 }
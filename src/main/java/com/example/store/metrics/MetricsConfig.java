@@ -0,0 +1,48 @@
+package com.example.store.metrics;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+
+import javax.sql.DataSource;
+
+/**
+ * Per-request SQL statement and row counts ({@code store.metrics.sql-counts.enabled}). Endpoint latency, Hikari and
+ * Hibernate metrics come from Spring Boot's Actuator auto-configuration; see {@code management.*} in
+ * {@code application.yaml}.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "store.metrics.sql-counts.enabled", havingValue = "true")
+public class MetricsConfig {
+
+    // Static so the post-processor is registered without initialising this configuration class early
+    @Bean
+    static BeanPostProcessor sqlCountingDataSourcePostProcessor() {
+        SqlStatementCounter counter = new SqlStatementCounter();
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+                    return ProxyDataSourceBuilder.create(dataSource)
+                            .name(beanName)
+                            .listener(counter)
+                            .methodListener(counter)
+                            .proxyResultSet()
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    FilterRegistrationBean<SqlMetricsFilter> sqlMetricsFilter(MeterRegistry registry) {
+        return new FilterRegistrationBean<>(new SqlMetricsFilter(registry));
+    }
+}
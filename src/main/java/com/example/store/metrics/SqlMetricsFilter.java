@@ -0,0 +1,54 @@
+package com.example.store.metrics;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.io.IOException;
+
+/**
+ * Records how many SQL statements each request executed ({@code store.http.sql.statements}) and how many rows it read
+ * ({@code store.http.sql.rows}), tagged with the method and URI template like {@code http.server.requests}. A jump in
+ * statements for one endpoint is an N+1; a jump in rows without more results is in-memory pagination.
+ */
+public class SqlMetricsFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry registry;
+
+    public SqlMetricsFilter(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        SqlStatementCounter.start();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            SqlStatementCounter.Counts counts = SqlStatementCounter.stop();
+            // Only requests that reached a handler have a URI template; skipping the rest keeps tag cardinality bounded
+            if (request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE) instanceof String uri) {
+                summary("store.http.sql.statements", "statements", request.getMethod(), uri)
+                        .record(counts.statements());
+                summary("store.http.sql.rows", "rows", request.getMethod(), uri).record(counts.rows());
+            }
+        }
+    }
+
+    private DistributionSummary summary(String name, String unit, String method, String uri) {
+        return DistributionSummary.builder(name)
+                .baseUnit(unit)
+                .tag("method", method)
+                .tag("uri", uri)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.store.metrics;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.MethodExecutionContext;
+import net.ttddyy.dsproxy.listener.MethodExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.sql.ResultSet;
+import java.util.List;
+
+/**
+ * Counts the SQL statements executed and the rows read on the current thread, between {@link #start()} and
+ * {@link #stop()}. Registered on the datasource-proxy wrapped around the application's {@code DataSource}.
+ *
+ * <p>Scopes nest: counts made inside an inner scope are added to the enclosing one when it stops. A statement is one
+ * round trip, so a JDBC batch counts once. A row is one successful {@link ResultSet#next()}.
+ */
+public class SqlStatementCounter implements QueryExecutionListener, MethodExecutionListener {
+
+    private static final ThreadLocal<Counts> CURRENT = new ThreadLocal<>();
+
+    /** Starts counting on this thread and returns the counts, which keep updating until {@link #stop()}. */
+    public static Counts start() {
+        Counts counts = new Counts(CURRENT.get());
+        CURRENT.set(counts);
+        return counts;
+    }
+
+    /** Stops the innermost scope on this thread and returns its final counts. */
+    public static Counts stop() {
+        Counts counts = CURRENT.get();
+        if (counts == null) {
+            throw new IllegalStateException("SqlStatementCounter.start() was not called on this thread");
+        }
+        if (counts.parent == null) {
+            CURRENT.remove();
+        } else {
+            counts.parent.statements += counts.statements;
+            counts.parent.rows += counts.rows;
+            CURRENT.set(counts.parent);
+        }
+        return counts;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {}
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        Counts counts = CURRENT.get();
+        if (counts != null) {
+            counts.statements++;
+        }
+    }
+
+    @Override
+    public void beforeMethod(MethodExecutionContext executionContext) {}
+
+    @Override
+    public void afterMethod(MethodExecutionContext executionContext) {
+        Counts counts = CURRENT.get();
+        if (counts != null
+                && executionContext.getTarget() instanceof ResultSet
+                && executionContext.getMethod().getName().equals("next")
+                && Boolean.TRUE.equals(executionContext.getResult())) {
+            counts.rows++;
+        }
+    }
+
+    public static final class Counts {
+
+        private final Counts parent;
+        private long statements;
+        private long rows;
+
+        private Counts(Counts parent) {
+            this.parent = parent;
+        }
+
+        public long statements() {
+            return statements;
+        }
+
+        public long rows() {
+            return rows;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.store.repository;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Row counts of whole tables from the planner statistics ({@code pg_class.reltuples}, kept current by autovacuum and
+ * {@code ANALYZE}) rather than a {@code COUNT(*)} scan, summed over the partitions of a partitioned table. A table with
+ * a partition that has never been analyzed has no estimate yet and is counted exactly instead.
+ *
+ * <p>Counts are cached; once older than {@code refresh-after-write} the next read returns the cached value and reloads
+ * it in the background, so only the first read of a table waits for the query.
+ */
+@Slf4j
+@Component
+public class ApproximateCounts {
+
+    private static final String ESTIMATE_SQL =
+            """
+            SELECT CASE WHEN MIN(c.reltuples) < 0 THEN -1 ELSE SUM(c.reltuples)::bigint END
+            FROM pg_partition_tree(?::regclass) t
+            JOIN pg_class c ON c.oid = t.relid
+            WHERE t.isleaf
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LoadingCache<String, Long> counts;
+
+    public ApproximateCounts(
+            JdbcTemplate jdbcTemplate,
+            @Value("${store.listing.approximate-counts.refresh-after-write:1m}") Duration refreshAfterWrite) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.counts = Caffeine.newBuilder().refreshAfterWrite(refreshAfterWrite).build(this::load);
+    }
+
+    /** The approximate number of rows in {@code table}, quoted as in SQL where needed (e.g. {@code "order"}). */
+    public long count(String table) {
+        return counts.get(table);
+    }
+
+    private long load(String table) {
+        Long estimate = jdbcTemplate.queryForObject(ESTIMATE_SQL, Long.class, table);
+        if (estimate != null && estimate >= 0) {
+            return estimate;
+        }
+        log.debug("No planner statistics for {} yet, counting it", table);
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+    }
+}
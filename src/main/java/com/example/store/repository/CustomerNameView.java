@@ -0,0 +1,8 @@
+package com.example.store.repository;
+
+/** Projection of a customer without its orders. */
+public interface CustomerNameView {
+    Long getId();
+
+    String getName();
+}
@@ -0,0 +1,8 @@
+package com.example.store.repository;
+
+/** Number of orders of one customer. */
+public interface CustomerOrderCountView {
+    Long getCustomerId();
+
+    Long getOrderCount();
+}
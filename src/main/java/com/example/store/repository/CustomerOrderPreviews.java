@@ -0,0 +1,73 @@
+package com.example.store.repository;
+
+import com.example.store.dto.CustomerDTO;
+import com.example.store.dto.CustomerOrderDTO;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The bounded alternatives to embedding every order of a customer ({@code ?orders=preview|count}): the newest
+ * {@code store.customers.orders-preview} orders, or just their stored number. Either is one statement for a whole page
+ * of customers, and the customers themselves are loaded without their orders. All orders are paged by
+ * {@code GET /customers/{id}/orders}.
+ */
+@Component
+public class CustomerOrderPreviews {
+
+    private final OrderRepository orderRepository;
+    private final CustomerRepository customerRepository;
+    private final int limit;
+
+    public CustomerOrderPreviews(
+            OrderRepository orderRepository,
+            CustomerRepository customerRepository,
+            @Value("${store.customers.orders-preview:10}") int limit) {
+        this.orderRepository = orderRepository;
+        this.customerRepository = customerRepository;
+        this.limit = limit;
+    }
+
+    /** Sets each customer's {@code orders} to its newest orders, newest first. */
+    public void fillPreviews(Collection<CustomerDTO> customers) {
+        if (customers.isEmpty()) {
+            return;
+        }
+        Map<Long, List<CustomerOrderDTO>> orders = new HashMap<>();
+        for (CustomerOrderView row : orderRepository.findOrderPreviews(ids(customers), limit)) {
+            CustomerOrderDTO order = new CustomerOrderDTO();
+            order.setId(row.getId());
+            order.setDescription(row.getDescription());
+            orders.computeIfAbsent(row.getCustomerId(), id -> new ArrayList<>()).add(order);
+        }
+        customers.forEach(customer -> customer.setOrders(orders.getOrDefault(customer.getId(), new ArrayList<>())));
+    }
+
+    /**
+     * Sets each customer's {@code orderCount} from the stored {@code order_count} column, a primary key lookup per
+     * customer instead of counting their orders, and clears {@code orders}.
+     */
+    public void fillCounts(Collection<CustomerDTO> customers) {
+        if (customers.isEmpty()) {
+            return;
+        }
+        Map<Long, Long> counts = new HashMap<>();
+        for (CustomerOrderCountView row : customerRepository.findOrderCounts(ids(customers))) {
+            counts.put(row.getCustomerId(), row.getOrderCount());
+        }
+        customers.forEach(customer -> {
+            customer.setOrders(null);
+            customer.setOrderCount(counts.getOrDefault(customer.getId(), 0L));
+        });
+    }
+
+    private static List<Long> ids(Collection<CustomerDTO> customers) {
+        return customers.stream().map(CustomerDTO::getId).toList();
+    }
+}
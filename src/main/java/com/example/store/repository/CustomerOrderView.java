@@ -0,0 +1,10 @@
+package com.example.store.repository;
+
+/** Projection of an order as embedded in a customer: id and description, without customer or products. */
+public interface CustomerOrderView {
+    Long getCustomerId();
+
+    Long getId();
+
+    String getDescription();
+}
@@ -2,25 +2,135 @@ package com.example.store.repository;
 
 import com.example.store.entity.Customer;
 
+import jakarta.persistence.QueryHint;
+
+import org.hibernate.jpa.HibernateHints;
+
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 public interface CustomerRepository extends JpaRepository<Customer, Long> {
+    int MAX_SEARCH_RESULTS = 1000;
+
+    /**
+     * Case-insensitive substring match (served by {@code idx_customer_name_trgm}), best {@code pg_trgm} similarity
+     * first. Projects id and name only, so orders are never loaded. Only the first {@value #MAX_SEARCH_RESULTS} matches
+     * found are ranked and counted, so a very unselective query can't turn into a sort or count of every match. Pass
+     * an unsorted {@link Pageable}.
+     */
+    @Query(
+            value =
+                    """
+                    SELECT c.id AS id, c.name AS name
+                    FROM (
+                        SELECT id, name
+                        FROM customer
+                        WHERE LOWER(name) LIKE LOWER(CONCAT('%', :q, '%'))
+                        LIMIT """
+                            + MAX_SEARCH_RESULTS
+                            + """
+                    ) c
+                    ORDER BY similarity(LOWER(c.name), LOWER(:q)) DESC, c.id DESC
+                    """,
+            countQuery =
+                    """
+                    SELECT COUNT(*) FROM (
+                        SELECT 1
+                        FROM customer c
+                        WHERE LOWER(c.name) LIKE LOWER(CONCAT('%', :q, '%'))
+                        LIMIT """
+                            + MAX_SEARCH_RESULTS
+                            + """
+                    ) capped
+                    """,
+            nativeQuery = true)
+    Page<CustomerNameView> searchRankedByName(@Param("q") String q, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select c.id as id, c.name as name from Customer c where c.id > :after order by c.id")
+    Stream<CustomerNameView> streamNamesAfter(@Param("after") long after);
+
+    @Query(value = "select c.id from Customer c", countQuery = "select count(c) from Customer c")
+    Page<Long> findPageOfIds(Pageable pageable);
+
+    /** Like {@link #findPageOfIds} without the count: reads one id past the page to tell whether there is a next. */
+    @Query("select c.id from Customer c")
+    Slice<Long> findSliceOfIds(Pageable pageable);
+
+    @Query("select c.id from Customer c where c.id in :ids")
+    Set<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * What the customer's ETag depends on, for answering {@code If-None-Match} without loading the customer: the
+     * version, the stored order count, and the newest order id from one probe of {@code idx_order_customer_id}, so the
+     * cost doesn't grow with the customer's order history. Creating an order only writes the order row, so the
+     * customer row is never updated (or locked) for it. The count, rolled up from the statistics deltas, also catches
+     * an order committed after one with a higher id.
+     */
     @Query(
-            """
-                    SELECT c
-                    FROM Customer c
-                    WHERE LOWER(c.name) LIKE LOWER(CONCAT('%', :q, '%'))
-    """)
-    List<Customer> searchByNameSubstring(@Param("q") String q);
-
-    @SuppressWarnings("NullableProblems")
+            value =
+                    """
+                    SELECT c.version AS version, c.order_count AS orderCount,
+                           (SELECT o.id FROM "order" o WHERE o.customer_id = c.id
+                            ORDER BY o.id DESC LIMIT 1) AS latestOrderId
+                    FROM customer c
+                    WHERE c.id = :id
+                    """,
+            nativeQuery = true)
+    Optional<CustomerVersionView> findVersionById(@Param("id") Long id);
+
+    /** The stored {@code order_count} of each customer, instead of counting their orders. */
+    @Query(
+            value = "SELECT id AS customerId, order_count AS orderCount FROM customer WHERE id IN (:ids)",
+            nativeQuery = true)
+    List<CustomerOrderCountView> findOrderCounts(@Param("ids") Collection<Long> ids);
+
+    @Query("select c.id from Customer c order by c.id desc")
+    List<Long> findLatestIds(Limit limit);
+
+    @Query("select c.id from Customer c where c.id < :after order by c.id desc")
+    List<Long> findIdsBefore(@Param("after") Long after, Limit limit);
+
     @EntityGraph(attributePaths = {"orders"})
-    Page<Customer> findAll(Pageable pageable);
+    List<Customer> findAllByIdIn(Collection<Long> ids, Sort sort);
+
+    /** Ids of the keyset page below {@code after} (or the newest when {@code after} is null), newest first. */
+    default List<Long> findKeysetIds(Long after, int limit) {
+        return after == null ? findLatestIds(Limit.of(limit)) : findIdsBefore(after, Limit.of(limit));
+    }
+
+    /** Keyset page: ids by primary key seek, then the {@code orders} graph for just those ids. */
+    default List<Customer> findBefore(Long after, int limit) {
+        List<Long> ids = findKeysetIds(after, limit);
+        return ids.isEmpty() ? List.of() : findAllByIdIn(ids, Sort.by("id").descending());
+    }
+
+    /** Offset page of ids with a real SQL LIMIT, then the {@code orders} graph for only those customers. */
+    default Page<Customer> findPage(Pageable pageable) {
+        Page<Long> ids = findPageOfIds(pageable);
+        List<Customer> content = ids.isEmpty() ? List.of() : findAllByIdIn(ids.getContent(), pageable.getSort());
+        return new PageImpl<>(content, pageable, ids.getTotalElements());
+    }
+
+    default Slice<Customer> findSlice(Pageable pageable) {
+        Slice<Long> ids = findSliceOfIds(pageable);
+        List<Customer> content = ids.isEmpty() ? List.of() : findAllByIdIn(ids.getContent(), pageable.getSort());
+        return new SliceImpl<>(content, pageable, ids.hasNext());
+    }
 }
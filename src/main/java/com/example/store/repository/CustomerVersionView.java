@@ -0,0 +1,15 @@
+package com.example.store.repository;
+
+/**
+ * What the ETag of a customer depends on: its version, and the state of its orders, which change without the customer
+ * row changing.
+ */
+public interface CustomerVersionView {
+    Long getVersion();
+
+    /** The stored {@code order_count}, served by {@code ?orders=count}. */
+    Long getOrderCount();
+
+    /** {@code null} for a customer without orders. */
+    Long getLatestOrderId();
+}
@@ -0,0 +1,246 @@
+package com.example.store.repository;
+
+import com.example.store.dto.CustomerDTO;
+import com.example.store.dto.CustomerOrderDTO;
+import com.example.store.dto.OrderCustomerDTO;
+import com.example.store.dto.OrderDTO;
+import com.example.store.dto.OrderProductDTO;
+import com.example.store.dto.ProductDTO;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only listing queries that build the DTOs straight from JDBC rows, without entities, a persistence context or
+ * the mappers ({@code store.listing.direct-dto.enabled}). Each page is one statement: the page of parent ids is a
+ * sub-select, and the flat parent/child join rows are grouped into DTOs in a single pass (the rows arrive ordered by
+ * parent id). Offset pages also run the count, unless Spring Data can tell the total from the page itself; slices
+ * never do.
+ *
+ * <p>A product's {@code orderIds} are the same bounded preview {@link OrderIdPreviews} reads. Pages are always newest
+ * first ({@code id DESC}), like every listing; the sort of the {@link Pageable} is ignored. The queries run in
+ * read-only transactions, like the repository reads they replace, so they are routed to a replica when one is
+ * configured.
+ */
+@Repository
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "store.listing.direct-dto.enabled", havingValue = "true")
+@Transactional(readOnly = true)
+public class DirectDtoQueries {
+
+    private static final String ORDERS =
+            """
+            SELECT o.id, o.description, o.version, c.id AS customer_id, c.name AS customer_name,
+                   p.id AS product_id, p.description AS product_description
+            FROM "order" o
+            JOIN customer c ON c.id = o.customer_id
+            LEFT JOIN order_product op ON op.order_id = o.id
+            LEFT JOIN product p ON p.id = op.product_id
+            WHERE o.id IN (%s)
+            ORDER BY o.id DESC, p.id
+            """;
+
+    private static final String CUSTOMERS =
+            """
+            SELECT c.id, c.name, c.version, o.id AS order_id, o.description AS order_description
+            FROM customer c
+            LEFT JOIN "order" o ON o.customer_id = c.id
+            WHERE c.id IN (%s)
+            ORDER BY c.id DESC, o.id
+            """;
+
+    private static final String PRODUCTS =
+            """
+            SELECT p.id, p.description, p.version, op.order_id
+            FROM product p
+            LEFT JOIN LATERAL (
+                SELECT order_id FROM order_product
+                WHERE product_id = p.id
+                ORDER BY order_id DESC
+                LIMIT :preview
+            ) op ON true
+            WHERE p.id IN (%s)
+            ORDER BY p.id DESC, op.order_id DESC
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final OrderIdPreviews orderIdPreviews;
+
+    public Page<OrderDTO> findOrderPage(Pageable pageable) {
+        return page(ORDERS, "\"order\"", pageable, OrderRows::extract);
+    }
+
+    public Slice<OrderDTO> findOrderSlice(Pageable pageable) {
+        return slice(ORDERS, "\"order\"", pageable, OrderRows::extract);
+    }
+
+    public List<OrderDTO> findOrdersBefore(Long after, int limit) {
+        return before(ORDERS, "\"order\"", after, limit, OrderRows::extract);
+    }
+
+    public Page<CustomerDTO> findCustomerPage(Pageable pageable) {
+        return page(CUSTOMERS, "customer", pageable, CustomerRows::extract);
+    }
+
+    public Slice<CustomerDTO> findCustomerSlice(Pageable pageable) {
+        return slice(CUSTOMERS, "customer", pageable, CustomerRows::extract);
+    }
+
+    public List<CustomerDTO> findCustomersBefore(Long after, int limit) {
+        return before(CUSTOMERS, "customer", after, limit, CustomerRows::extract);
+    }
+
+    public Page<ProductDTO> findProductPage(Pageable pageable) {
+        return page(PRODUCTS, "product", pageable, ProductRows::extract);
+    }
+
+    public Slice<ProductDTO> findProductSlice(Pageable pageable) {
+        return slice(PRODUCTS, "product", pageable, ProductRows::extract);
+    }
+
+    public List<ProductDTO> findProductsBefore(Long after, int limit) {
+        return before(PRODUCTS, "product", after, limit, ProductRows::extract);
+    }
+
+    private <T> Page<T> page(String sql, String table, Pageable pageable, ResultSetExtractor<List<T>> extractor) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("limit", pageable.getPageSize())
+                .addValue("offset", pageable.getOffset())
+                .addValue("preview", orderIdPreviews.limit());
+        List<T> content = jdbcTemplate.query(
+                sql.formatted("SELECT id FROM " + table + " ORDER BY id DESC LIMIT :limit OFFSET :offset"),
+                params,
+                extractor);
+        return PageableExecutionUtils.getPage(content, pageable, () -> jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM " + table, Map.of(), Long.class));
+    }
+
+    /** An offset page without the count; one parent past the page tells whether there is a next. */
+    private <T> Slice<T> slice(String sql, String table, Pageable pageable, ResultSetExtractor<List<T>> extractor) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("limit", pageable.getPageSize() + 1)
+                .addValue("offset", pageable.getOffset())
+                .addValue("preview", orderIdPreviews.limit());
+        List<T> content = jdbcTemplate.query(
+                sql.formatted("SELECT id FROM " + table + " ORDER BY id DESC LIMIT :limit OFFSET :offset"),
+                params,
+                extractor);
+        boolean hasNext = content.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? content.subList(0, pageable.getPageSize()) : content, pageable, hasNext);
+    }
+
+    private <T> List<T> before(
+            String sql, String table, Long after, int limit, ResultSetExtractor<List<T>> extractor) {
+        MapSqlParameterSource params =
+                new MapSqlParameterSource().addValue("limit", limit).addValue("preview", orderIdPreviews.limit());
+        String where = "";
+        if (after != null) {
+            where = "WHERE id < :after ";
+            params.addValue("after", after);
+        }
+        return jdbcTemplate.query(
+                sql.formatted("SELECT id FROM " + table + " " + where + "ORDER BY id DESC LIMIT :limit"),
+                params,
+                extractor);
+    }
+
+    /** Rows of one order repeat for each of its products; a change of id starts the next order. */
+    private static final class OrderRows {
+
+        static List<OrderDTO> extract(ResultSet rs) throws SQLException {
+            List<OrderDTO> orders = new ArrayList<>();
+            OrderDTO current = null;
+            while (rs.next()) {
+                long id = rs.getLong("id");
+                if (current == null || current.getId() != id) {
+                    OrderCustomerDTO customer = new OrderCustomerDTO();
+                    customer.setId(rs.getLong("customer_id"));
+                    customer.setName(rs.getString("customer_name"));
+                    current = new OrderDTO();
+                    current.setId(id);
+                    current.setDescription(rs.getString("description"));
+                    current.setVersion(rs.getLong("version"));
+                    current.setCustomer(customer);
+                    current.setProducts(new ArrayList<>());
+                    orders.add(current);
+                }
+                long productId = rs.getLong("product_id");
+                if (!rs.wasNull()) {
+                    OrderProductDTO product = new OrderProductDTO();
+                    product.setId(productId);
+                    product.setDescription(rs.getString("product_description"));
+                    current.getProducts().add(product);
+                }
+            }
+            return orders;
+        }
+    }
+
+    private static final class CustomerRows {
+
+        static List<CustomerDTO> extract(ResultSet rs) throws SQLException {
+            List<CustomerDTO> customers = new ArrayList<>();
+            CustomerDTO current = null;
+            while (rs.next()) {
+                long id = rs.getLong("id");
+                if (current == null || current.getId() != id) {
+                    current = new CustomerDTO();
+                    current.setId(id);
+                    current.setName(rs.getString("name"));
+                    current.setVersion(rs.getLong("version"));
+                    current.setOrders(new ArrayList<>());
+                    customers.add(current);
+                }
+                long orderId = rs.getLong("order_id");
+                if (!rs.wasNull()) {
+                    CustomerOrderDTO order = new CustomerOrderDTO();
+                    order.setId(orderId);
+                    order.setDescription(rs.getString("order_description"));
+                    current.getOrders().add(order);
+                }
+            }
+            return customers;
+        }
+    }
+
+    private static final class ProductRows {
+
+        static List<ProductDTO> extract(ResultSet rs) throws SQLException {
+            List<ProductDTO> products = new ArrayList<>();
+            ProductDTO current = null;
+            while (rs.next()) {
+                long id = rs.getLong("id");
+                if (current == null || current.getId() != id) {
+                    current = new ProductDTO();
+                    current.setId(id);
+                    current.setDescription(rs.getString("description"));
+                    current.setVersion(rs.getLong("version"));
+                    current.setOrderIds(new ArrayList<>());
+                    products.add(current);
+                }
+                long orderId = rs.getLong("order_id");
+                if (!rs.wasNull()) {
+                    current.getOrderIds().add(orderId);
+                }
+            }
+            return products;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.store.repository;
+
+import jakarta.persistence.EntityGraph;
+import jakarta.persistence.EntityManager;
+
+import lombok.RequiredArgsConstructor;
+
+import org.hibernate.jpa.SpecHints;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Loads entities with a fetch graph chosen per request, for sparse fieldsets ({@code ?fields=}): only the named
+ * associations are joined and every other association is left unloaded. The {@code @EntityGraph} repository methods
+ * remain the path for the full representation.
+ */
+@Component
+@RequiredArgsConstructor
+public class FetchGraphLoader {
+
+    private final EntityManager entityManager;
+
+    public <T> Optional<T> findById(Class<T> type, Long id, Collection<String> associations) {
+        return Optional.ofNullable(
+                entityManager.find(type, id, Map.of(SpecHints.HINT_SPEC_FETCH_GRAPH, graph(type, associations))));
+    }
+
+    /** Newest first, like every listing. */
+    public <T> List<T> findAllById(Class<T> type, List<Long> ids, Collection<String> associations) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        String entity = entityManager.getMetamodel().entity(type).getName();
+        return entityManager
+                .createQuery("select e from " + entity + " e where e.id in :ids order by e.id desc", type)
+                .setParameter("ids", ids)
+                .setHint(SpecHints.HINT_SPEC_FETCH_GRAPH, graph(type, associations))
+                .getResultList();
+    }
+
+    /** Second phase of a two-phase page: the entities for a page of ids selected by {@code findPageOfIds}. */
+    public <T> Page<T> findPage(Class<T> type, Page<Long> ids, Collection<String> associations) {
+        return new PageImpl<>(
+                findAllById(type, ids.getContent(), associations), ids.getPageable(), ids.getTotalElements());
+    }
+
+    /** Like {@link #findPage}, for a page of ids selected by {@code findSliceOfIds}. */
+    public <T> Slice<T> findSlice(Class<T> type, Slice<Long> ids, Collection<String> associations) {
+        return new SliceImpl<>(findAllById(type, ids.getContent(), associations), ids.getPageable(), ids.hasNext());
+    }
+
+    private <T> EntityGraph<T> graph(Class<T> type, Collection<String> associations) {
+        EntityGraph<T> graph = entityManager.createEntityGraph(type);
+        associations.forEach(graph::addAttributeNodes);
+        return graph;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.store.repository;
+
+import com.example.store.dto.ProductDTO;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fills {@link ProductDTO#getOrderIds()} with the product's newest order ids, at most
+ * {@code store.products.order-ids-preview} of them, so a product representation stays small however popular the
+ * product is. The complete list is paged by {@code GET /products/{id}/orders}.
+ */
+@Component
+public class OrderIdPreviews {
+
+    private final ProductRepository productRepository;
+    private final int limit;
+
+    public OrderIdPreviews(
+            ProductRepository productRepository, @Value("${store.products.order-ids-preview:100}") int limit) {
+        this.productRepository = productRepository;
+        this.limit = limit;
+    }
+
+    public int limit() {
+        return limit;
+    }
+
+    /** One statement for all of {@code products}; each gets a new list, newest order first. */
+    public void fill(Collection<ProductDTO> products) {
+        if (products.isEmpty()) {
+            return;
+        }
+        List<Long> ids = products.stream().map(ProductDTO::getId).toList();
+        Map<Long, List<Long>> orderIds = new HashMap<>();
+        for (ProductOrderIdView row : productRepository.findOrderIdPreviews(ids, limit)) {
+            orderIds.computeIfAbsent(row.getProductId(), id -> new ArrayList<>()).add(row.getOrderId());
+        }
+        products.forEach(product -> product.setOrderIds(orderIds.getOrDefault(product.getId(), new ArrayList<>())));
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.store.repository;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps range partitions of {@code "order"} and {@code order_product} ready ahead of the order id sequence, so an
+ * insert never finds no partition for its id. Ids are handed out in blocks of 50 and {@code last_value} is the top of
+ * the newest block, so ids up to it may already be in use; partitions are created until one ends more than
+ * {@code ahead} partitions above it. The work is done by the {@code create_order_partitions} function of
+ * {@code schema-8.sql}, which also serves for adding partitions by hand.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "store.orders.partitions.enabled", havingValue = "true")
+public class OrderPartitions {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long size;
+    private final int ahead;
+
+    public OrderPartitions(
+            JdbcTemplate jdbcTemplate,
+            @Value("${store.orders.partitions.size:10000000}") long size,
+            @Value("${store.orders.partitions.ahead:2}") int ahead) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.size = size;
+        this.ahead = ahead;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        createAhead();
+    }
+
+    @Scheduled(
+            fixedDelayString = "${store.orders.partitions.check-interval:PT1H}",
+            initialDelayString = "${store.orders.partitions.check-interval:PT1H}")
+    public void createAhead() {
+        Integer created = jdbcTemplate.queryForObject(
+                "SELECT create_order_partitions((SELECT last_value FROM order_id_seq) + ?, ?)",
+                Integer.class,
+                ahead * size,
+                size);
+        if (created != null && created > 0) {
+            log.info("Created {} order partitions of {} ids", created, size);
+        }
+    }
+}
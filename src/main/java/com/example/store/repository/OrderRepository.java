@@ -2,19 +2,135 @@ package com.example.store.repository;
 
 import com.example.store.entity.Order;
 
+import jakarta.persistence.QueryHint;
+
+import org.hibernate.jpa.HibernateHints;
+
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+/**
+ * Order reads, written to hold up when {@code "order"} and {@code order_product} are range partitioned by order id
+ * ({@code store.orders.partitions.enabled}): lookups by id and the graph of a page of ids prune to the partitions
+ * holding those ids, keyset pages ({@code id < :after}) skip the partitions above the cursor, and the newest-first
+ * queries read the partitions newest first and stop once the {@code LIMIT} is reached. The page counts, and customers
+ * with few recent orders, still visit every partition.
+ */
 public interface OrderRepository extends JpaRepository<Order, Long> {
-    @SuppressWarnings("NullableProblems")
-    @EntityGraph(attributePaths = {"customer", "products"})
-    Page<Order> findAll(Pageable pageable);
+    @Query(value = "select o.id from Order o", countQuery = "select count(o) from Order o")
+    Page<Long> findPageOfIds(Pageable pageable);
+
+    /** Like {@link #findPageOfIds} without the count: reads one id past the page to tell whether there is a next. */
+    @Query("select o.id from Order o")
+    Slice<Long> findSliceOfIds(Pageable pageable);
 
     @SuppressWarnings("NullableProblems")
     @EntityGraph(attributePaths = {"customer", "products"})
     Optional<Order> findById(Long id);
+
+    /** The version alone, for answering {@code If-None-Match} without loading the graph. */
+    @Query("select o.version from Order o where o.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    @Query("select o.id from Order o order by o.id desc")
+    List<Long> findLatestIds(Limit limit);
+
+    @Query("select o.id from Order o where o.id < :after order by o.id desc")
+    List<Long> findIdsBefore(@Param("after") Long after, Limit limit);
+
+    @EntityGraph(attributePaths = {"customer", "products"})
+    List<Order> findAllByIdIn(Collection<Long> ids, Sort sort);
+
+    /**
+     * The newest {@code limit} orders of each customer, in one statement; the lateral sub-select stops after
+     * {@code limit} entries of {@code idx_order_customer_id} per customer however long its order history is.
+     */
+    @Query(
+            value =
+                    """
+                    SELECT c.id AS customerId, o.id AS id, o.description AS description
+                    FROM customer c
+                    CROSS JOIN LATERAL (
+                        SELECT id, description FROM "order"
+                        WHERE customer_id = c.id
+                        ORDER BY id DESC
+                        LIMIT :limit
+                    ) o
+                    WHERE c.id IN (:ids)
+                    ORDER BY c.id, o.id DESC
+                    """,
+            nativeQuery = true)
+    List<CustomerOrderView> findOrderPreviews(@Param("ids") Collection<Long> ids, @Param("limit") int limit);
+
+    @Query("select o.customer.id as customerId, o.id as id, o.description as description from Order o "
+            + "where o.customer.id = :customerId order by o.id desc")
+    List<CustomerOrderView> findLatestOfCustomer(@Param("customerId") Long customerId, Limit limit);
+
+    @Query("select o.customer.id as customerId, o.id as id, o.description as description from Order o "
+            + "where o.customer.id = :customerId and o.id < :after order by o.id desc")
+    List<CustomerOrderView> findOfCustomerBefore(
+            @Param("customerId") Long customerId, @Param("after") Long after, Limit limit);
+
+    /**
+     * Forward-only cursor over all orders, oldest first. Must be consumed (and closed) inside a transaction; the
+     * PostgreSQL driver only streams with a fetch size when autocommit is off.
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select o from Order o join fetch o.customer order by o.id")
+    Stream<Order> streamAll();
+
+    /** Ids of the keyset page below {@code after} (or the newest when {@code after} is null), newest first. */
+    default List<Long> findKeysetIds(Long after, int limit) {
+        return after == null ? findLatestIds(Limit.of(limit)) : findIdsBefore(after, Limit.of(limit));
+    }
+
+    /** Keyset page of a customer's orders below {@code after} (or the newest), newest first, without the graph. */
+    default List<CustomerOrderView> findOfCustomer(Long customerId, Long after, int limit) {
+        return after == null
+                ? findLatestOfCustomer(customerId, Limit.of(limit))
+                : findOfCustomerBefore(customerId, after, Limit.of(limit));
+    }
+
+    /**
+     * Keyset page: seeks on the primary key index for the ids first (so the LIMIT is applied in SQL, which it can't be
+     * with a collection fetch join), then loads the graph for just those ids.
+     */
+    default List<Order> findBefore(Long after, int limit) {
+        List<Long> ids = findKeysetIds(after, limit);
+        return ids.isEmpty() ? List.of() : findAllByIdIn(ids, Sort.by("id").descending());
+    }
+
+    /**
+     * {@code products} is a collection, so the graph can't be paged in SQL either; page the ids, then fetch the graph
+     * for the page.
+     */
+    default Page<Order> findPage(Pageable pageable) {
+        Page<Long> ids = findPageOfIds(pageable);
+        List<Order> content = ids.isEmpty() ? List.of() : findAllByIdIn(ids.getContent(), pageable.getSort());
+        return new PageImpl<>(content, pageable, ids.getTotalElements());
+    }
+
+    default Slice<Order> findSlice(Pageable pageable) {
+        Slice<Long> ids = findSliceOfIds(pageable);
+        List<Order> content = ids.isEmpty() ? List.of() : findAllByIdIn(ids.getContent(), pageable.getSort());
+        return new SliceImpl<>(content, pageable, ids.hasNext());
+    }
 }
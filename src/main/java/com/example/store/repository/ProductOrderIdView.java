@@ -0,0 +1,8 @@
+package com.example.store.repository;
+
+/** One {@code order_product} row, as product id and order id. */
+public interface ProductOrderIdView {
+    Long getProductId();
+
+    Long getOrderId();
+}
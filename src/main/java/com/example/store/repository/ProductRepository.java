@@ -2,22 +2,118 @@ package com.example.store.repository;
 
 import com.example.store.entity.Product;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
+/**
+ * Products are loaded without their {@code orders}: a popular product is in far too many orders to hydrate them. The
+ * order ids a product representation needs are read from {@code order_product} alone, bounded by a limit, and served
+ * by the {@code (product_id, order_id)} index.
+ */
 public interface ProductRepository extends JpaRepository<Product, Long> {
-    @SuppressWarnings("NullableProblems")
-    @EntityGraph(attributePaths = {"orders"})
-    Page<Product> findAll(Pageable pageable);
-
-    @SuppressWarnings("NullableProblems")
-    @EntityGraph(attributePaths = {"orders"})
-    @Query("select p from Product p where p.id = :id")
-    Optional<Product> findById(@Param("id") Long id);
+    @Query(value = "select p from Product p", countQuery = "select count(p) from Product p")
+    Page<Product> findPage(Pageable pageable);
+
+    /** Like {@link #findPage} without the count: reads one row past the page to tell whether there is a next. */
+    @Query("select p from Product p")
+    Slice<Product> findSlice(Pageable pageable);
+
+    @Query("select p from Product p order by p.id desc")
+    List<Product> findLatest(Limit limit);
+
+    @Query("select p from Product p where p.id < :after order by p.id desc")
+    List<Product> findAllBefore(@Param("after") Long after, Limit limit);
+
+    /** The version alone, for answering {@code If-None-Match} without loading the product. */
+    @Query("select p.version from Product p where p.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    /**
+     * What the ETag of a product depends on, in one statement: its version and its newest {@code limit} order ids (the
+     * {@code orderIds} of its representation), newest first, as one row per order id. A product without orders is a
+     * single row without an order id. Linking an order only writes {@code order_product}, so the product row is never
+     * updated (or locked) for it.
+     */
+    @Query(
+            value =
+                    """
+                    SELECT p.version AS version, op.order_id AS orderId
+                    FROM product p
+                    LEFT JOIN LATERAL (
+                        SELECT order_id FROM order_product
+                        WHERE product_id = p.id
+                        ORDER BY order_id DESC
+                        LIMIT :limit
+                    ) op ON true
+                    WHERE p.id = :id
+                    ORDER BY op.order_id DESC NULLS LAST
+                    """,
+            nativeQuery = true)
+    List<ProductVersionView> findVersionWithOrderIds(@Param("id") Long id, @Param("limit") int limit);
+
+    @Query("select p.id from Product p where p.id in :ids")
+    Set<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * The newest {@code limit} order ids of each product, in one statement: the lateral sub-select stops after
+     * {@code limit} index entries per product however many orders it is in.
+     */
+    @Query(
+            value =
+                    """
+                    SELECT p.id AS productId, op.order_id AS orderId
+                    FROM product p
+                    CROSS JOIN LATERAL (
+                        SELECT order_id FROM order_product
+                        WHERE product_id = p.id
+                        ORDER BY order_id DESC
+                        LIMIT :limit
+                    ) op
+                    WHERE p.id IN (:ids)
+                    ORDER BY p.id, op.order_id DESC
+                    """,
+            nativeQuery = true)
+    List<ProductOrderIdView> findOrderIdPreviews(@Param("ids") Collection<Long> ids, @Param("limit") int limit);
+
+    @Query(
+            value =
+                    """
+                    SELECT order_id FROM order_product
+                    WHERE product_id = :id
+                    ORDER BY order_id DESC
+                    LIMIT :limit
+                    """,
+            nativeQuery = true)
+    List<Long> findLatestOrderIds(@Param("id") Long id, @Param("limit") int limit);
+
+    @Query(
+            value =
+                    """
+                    SELECT order_id FROM order_product
+                    WHERE product_id = :id AND order_id < :after
+                    ORDER BY order_id DESC
+                    LIMIT :limit
+                    """,
+            nativeQuery = true)
+    List<Long> findOrderIdsBefore(@Param("id") Long id, @Param("after") Long after, @Param("limit") int limit);
+
+    /** Keyset page of the ids of the orders containing a product, below {@code after} (or the newest), newest first. */
+    default List<Long> findOrderIds(Long id, Long after, int limit) {
+        return after == null ? findLatestOrderIds(id, limit) : findOrderIdsBefore(id, after, limit);
+    }
+
+    /** Keyset page by primary key seek; products are loaded without their orders. */
+    default List<Product> findBefore(Long after, int limit) {
+        return after == null ? findLatest(Limit.of(limit)) : findAllBefore(after, Limit.of(limit));
+    }
 }
@@ -0,0 +1,8 @@
+package com.example.store.repository;
+
+/** A product's version with one of its newest order ids ({@code null} for a product without orders). */
+public interface ProductVersionView {
+    Long getVersion();
+
+    Long getOrderId();
+}
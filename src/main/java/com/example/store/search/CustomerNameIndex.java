@@ -0,0 +1,332 @@
+package com.example.store.search;
+
+import com.example.store.dto.CustomerSummaryDTO;
+import com.example.store.repository.CustomerNameView;
+import com.example.store.repository.CustomerRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory trigram index over customer names answering the same case-insensitive substring queries as {@link
+ * CustomerRepository#searchRankedByName} without a database round-trip.
+ *
+ * <p>Every customer gets an internal document number (its position in {@link #ids}/{@link #names}); each distinct
+ * trigram of a lower-cased name maps to an ascending {@link IntList} of document numbers. A query of three or more
+ * characters intersects the posting lists of its trigrams and verifies the survivors with {@link String#contains};
+ * shorter queries are left to the database, which stops at the first matches it finds instead of this index scanning
+ * every name. Matches are ranked like {@code pg_trgm}'s {@code similarity()}, keeping only the best few. The index is
+ * loaded once the application is ready, and kept current by {@link #add(Long, String)} for this instance's customers
+ * and by {@link #refresh()} for the other instances'; until loading finishes {@link #isReady()} is false and callers
+ * should use the database.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "store.search.customer-index.enabled", havingValue = "true")
+public class CustomerNameIndex {
+
+    private static final int[] NO_DOCS = new int[0];
+
+    private static final Comparator<Hit> RANKING = Comparator.comparingDouble(Hit::similarity)
+            .reversed()
+            .thenComparing(Comparator.comparingLong(Hit::id).reversed());
+
+    /** Queries shorter than a trigram have no posting list to look up; they are left to the database. */
+    public static final int MIN_QUERY_LENGTH = 3;
+
+    private final CustomerRepository customerRepository;
+    private final long overlap;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, IntList> postings = new HashMap<>();
+
+    private long[] ids = new long[1024];
+    private String[] names = new String[1024];
+    private String[] lowerNames = new String[1024];
+    private int size;
+    private volatile boolean ready;
+
+    /** The highest id read from the database. */
+    private long loadedUpTo;
+
+    /** The indexed ids above {@code loadedUpTo - overlap}, which {@link #refresh()} reads again. */
+    private final TreeSet<Long> recentIds = new TreeSet<>();
+
+    public CustomerNameIndex(
+            CustomerRepository customerRepository,
+            @Value("${store.search.customer-index.refresh-overlap:1000}") long overlap) {
+        this.customerRepository = customerRepository;
+        this.overlap = overlap;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        long start = System.nanoTime();
+        try (Stream<CustomerNameView> customers = customerRepository.streamNamesAfter(0L)) {
+            customers.forEach(this::addLoaded);
+        }
+        ready = true;
+        log.info(
+                "Indexed {} customer names ({} trigrams) in {} ms",
+                size,
+                postings.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Adds the customers other instances created, which {@link #add} never sees here. Ids come from a pooled sequence,
+     * so an instance may still be inserting ids below the highest one read; the last {@code refresh-overlap} ids are
+     * read again to catch those, and the ones already indexed are skipped.
+     */
+    @Scheduled(
+            fixedDelayString = "${store.search.customer-index.refresh-interval:PT30S}",
+            initialDelayString = "${store.search.customer-index.refresh-interval:PT30S}")
+    @Transactional(readOnly = true)
+    public void refresh() {
+        if (!ready) {
+            return;
+        }
+        long after;
+        lock.readLock().lock();
+        try {
+            after = loadedUpTo - overlap;
+        } finally {
+            lock.readLock().unlock();
+        }
+        try (Stream<CustomerNameView> customers = customerRepository.streamNamesAfter(after)) {
+            customers.forEach(this::addLoaded);
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /** Adds a customer unless it is one of the recent ids already indexed. */
+    public void add(Long id, String name) {
+        String lower = name.toLowerCase(Locale.ROOT);
+        long[] trigrams = distinctTrigrams(lower);
+        lock.writeLock().lock();
+        try {
+            if (id > loadedUpTo - overlap && !recentIds.add(id)) {
+                return;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                names = Arrays.copyOf(names, size * 2);
+                lowerNames = Arrays.copyOf(lowerNames, size * 2);
+            }
+            int doc = size++;
+            ids[doc] = id;
+            names[doc] = name;
+            lowerNames[doc] = lower;
+            for (long trigram : trigrams) {
+                postings.computeIfAbsent(trigram, t -> new IntList()).add(doc);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Rows are read in id order; ids that fall out of the overlap are never read again, so stop tracking them. */
+    private void addLoaded(CustomerNameView customer) {
+        add(customer.getId(), customer.getName());
+        lock.writeLock().lock();
+        try {
+            if (customer.getId() > loadedUpTo) {
+                loadedUpTo = customer.getId();
+                recentIds.headSet(loadedUpTo - overlap, true).clear();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The best {@code limit} customers whose name contains {@code query} (at least {@value #MIN_QUERY_LENGTH}
+     * characters), ignoring case, ordered by descending trigram similarity to the query and then by descending id, and
+     * the number of matches. Only the best {@code limit} are kept while the matches are ranked, so an unselective query
+     * never sorts (or copies) all of them.
+     */
+    public Matches search(String query, int limit) {
+        if (query.length() < MIN_QUERY_LENGTH) {
+            throw new IllegalArgumentException("Query must have at least " + MIN_QUERY_LENGTH + " characters");
+        }
+        String lower = query.toLowerCase(Locale.ROOT);
+        long[] queryTrigrams = wordTrigrams(lower);
+        // Ordered by RANKING, worst last
+        TreeSet<Hit> best = new TreeSet<>(RANKING);
+        int total;
+        lock.readLock().lock();
+        try {
+            int[] docs = lookup(lower);
+            total = docs.length;
+            for (int doc : docs) {
+                Hit hit = new Hit(ids[doc], names[doc], similarity(wordTrigrams(lowerNames[doc]), queryTrigrams));
+                if (best.size() < limit) {
+                    best.add(hit);
+                } else if (limit > 0 && RANKING.compare(hit, best.last()) < 0 && best.add(hit)) {
+                    best.pollLast();
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<CustomerSummaryDTO> customers = new ArrayList<>(best.size());
+        for (Hit hit : best) {
+            customers.add(new CustomerSummaryDTO(hit.id(), hit.name()));
+        }
+        return new Matches(customers, total);
+    }
+
+    private int[] lookup(String lower) {
+        long[] trigrams = distinctTrigrams(lower);
+        IntList[] lists = new IntList[trigrams.length];
+        for (int i = 0; i < trigrams.length; i++) {
+            lists[i] = postings.get(trigrams[i]);
+            if (lists[i] == null) {
+                return NO_DOCS;
+            }
+        }
+        // Intersect starting from the rarest trigram so the candidate set is as small as possible from the start
+        Arrays.sort(lists, Comparator.comparingInt(IntList::size));
+        int[] candidates = toArray(lists[0]);
+        int count = candidates.length;
+        for (int i = 1; i < lists.length && count > 0; i++) {
+            count = intersect(candidates, count, lists[i]);
+        }
+        IntList matches = new IntList();
+        for (int i = 0; i < count; i++) {
+            // Trigram hits are necessary but not sufficient (they may not be contiguous), so verify
+            if (lowerNames[candidates[i]].contains(lower)) {
+                matches.add(candidates[i]);
+            }
+        }
+        return toArray(matches);
+    }
+
+    /** Keeps the entries of the sorted {@code candidates[0..count)} also present in {@code list}, in place. */
+    private static int intersect(int[] candidates, int count, IntList list) {
+        int kept = 0;
+        int j = 0;
+        for (int i = 0; i < count && j < list.size(); ) {
+            int a = candidates[i];
+            int b = list.get(j);
+            if (a == b) {
+                candidates[kept++] = a;
+                i++;
+                j++;
+            } else if (a < b) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return kept;
+    }
+
+    private static int[] toArray(IntList list) {
+        int[] values = new int[list.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = list.get(i);
+        }
+        return values;
+    }
+
+    /** Sorted, distinct trigrams of {@code s}, each packed into a long as three 16-bit chars. */
+    static long[] distinctTrigrams(String s) {
+        if (s.length() < 3) {
+            return new long[0];
+        }
+        long[] trigrams = new long[s.length() - 2];
+        for (int i = 0; i < trigrams.length; i++) {
+            trigrams[i] = pack(s.charAt(i), s.charAt(i + 1), s.charAt(i + 2));
+        }
+        return sortedDistinct(trigrams, trigrams.length);
+    }
+
+    /**
+     * Trigrams the way {@code pg_trgm} extracts them for {@code similarity()}: per alphanumeric word, padded with two
+     * spaces in front and one behind.
+     */
+    static long[] wordTrigrams(String lower) {
+        long[] trigrams = new long[lower.length() * 3 + 3];
+        int count = 0;
+        int i = 0;
+        while (i < lower.length()) {
+            while (i < lower.length() && !Character.isLetterOrDigit(lower.charAt(i))) {
+                i++;
+            }
+            int start = i;
+            while (i < lower.length() && Character.isLetterOrDigit(lower.charAt(i))) {
+                i++;
+            }
+            if (i > start) {
+                String padded = "  " + lower.substring(start, i) + " ";
+                for (int k = 0; k + 2 < padded.length(); k++) {
+                    trigrams[count++] = pack(padded.charAt(k), padded.charAt(k + 1), padded.charAt(k + 2));
+                }
+            }
+        }
+        return sortedDistinct(trigrams, count);
+    }
+
+    /** Shared trigrams over the size of their union, for two sorted, distinct trigram arrays. */
+    static double similarity(long[] a, long[] b) {
+        if (a.length == 0 || b.length == 0) {
+            return 0;
+        }
+        int common = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] == b[j]) {
+                common++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return (double) common / (a.length + b.length - common);
+    }
+
+    private static long pack(char a, char b, char c) {
+        return ((long) a << 32) | ((long) b << 16) | c;
+    }
+
+    private static long[] sortedDistinct(long[] values, int length) {
+        Arrays.sort(values, 0, length);
+        int distinct = 0;
+        for (int i = 0; i < length; i++) {
+            if (i == 0 || values[i] != values[i - 1]) {
+                values[distinct++] = values[i];
+            }
+        }
+        return Arrays.copyOf(values, distinct);
+    }
+
+    /** The best matches of {@link #search}, and how many customers matched in all. */
+    public record Matches(List<CustomerSummaryDTO> customers, int total) {}
+
+    private record Hit(long id, String name, double similarity) {}
+}
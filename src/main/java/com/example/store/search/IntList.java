@@ -0,0 +1,25 @@
+package com.example.store.search;
+
+import java.util.Arrays;
+
+/** Growable {@code int[]}; used for posting lists so that each entry costs 4 bytes rather than a boxed Integer. */
+final class IntList {
+
+    private int[] values = new int[4];
+    private int size;
+
+    void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size + (size >> 1) + 1);
+        }
+        values[size++] = value;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int get(int index) {
+        return values[index];
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.store.service;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Slice;
+
+import java.util.function.LongSupplier;
+
+/** How an offset page gets its totals ({@code ?count=none|approx|exact}). */
+public enum CountMode {
+    /** No totals: a slice, which only knows whether there is a next page. */
+    NONE,
+    /** Totals from an estimate of the table size instead of a count. */
+    APPROX,
+    /** Totals from a {@code COUNT(*)}, unless the page itself shows the total. */
+    EXACT;
+
+    /**
+     * Completes a slice read without a count: {@link #APPROX} turns it into a page whose total is the {@code estimate},
+     * kept consistent with what the slice itself shows (more rows than the page when there is a next, exact on the last
+     * page); the other modes return it as is.
+     */
+    <T> Slice<T> complete(Slice<T> slice, LongSupplier estimate) {
+        if (this != APPROX) {
+            return slice;
+        }
+        long seen = slice.getPageable().getOffset() + slice.getNumberOfElements();
+        long total;
+        if (slice.hasNext()) {
+            total = Math.max(estimate.getAsLong(), seen + 1);
+        } else if (slice.hasContent() || seen == 0) {
+            total = seen;
+        } else {
+            // Past the last page: there are at most as many rows as the offset
+            total = Math.min(estimate.getAsLong(), seen);
+        }
+        return new PageImpl<>(slice.getContent(), slice.getPageable(), total);
+    }
+}
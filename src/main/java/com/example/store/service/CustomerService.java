@@ -0,0 +1,174 @@
+package com.example.store.service;
+
+import com.example.store.dto.CustomerDTO;
+import com.example.store.dto.CustomerOrderDTO;
+import com.example.store.dto.CustomerSummaryDTO;
+import com.example.store.entity.Customer;
+import com.example.store.exception.NotFoundException;
+import com.example.store.mapper.CustomerMapper;
+import com.example.store.repository.ApproximateCounts;
+import com.example.store.repository.CustomerOrderPreviews;
+import com.example.store.repository.CustomerRepository;
+import com.example.store.repository.CustomerVersionView;
+import com.example.store.repository.DirectDtoQueries;
+import com.example.store.repository.FetchGraphLoader;
+import com.example.store.repository.OrderRepository;
+import com.example.store.stats.StoreStatistics;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Customer reads and creation; reads run in read-only transactions and return mapped DTOs. Methods taking
+ * {@code associations} load just those with a fetch graph, and {@code orders} says how the customers' orders are filled
+ * in: {@link OrdersMode#PREVIEW} and {@link OrdersMode#COUNT} add one statement for all of them, while
+ * {@link OrdersMode#ALL} keeps whatever {@code associations} loaded.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class CustomerService {
+
+    private static final String TABLE = "customer";
+
+    private final CustomerRepository customerRepository;
+    private final OrderRepository orderRepository;
+    private final CustomerMapper customerMapper;
+    private final CustomerOrderPreviews customerOrderPreviews;
+    private final FetchGraphLoader fetchGraphLoader;
+    private final ApproximateCounts approximateCounts;
+    private final StoreStatistics storeStatistics;
+    private final ObjectProvider<DirectDtoQueries> directDtoQueries;
+
+    /** The full representation, with every order. */
+    public Slice<CustomerDTO> findPage(Pageable pageable, CountMode count) {
+        DirectDtoQueries direct = directDtoQueries.getIfAvailable();
+        if (count == CountMode.EXACT) {
+            return direct != null
+                    ? direct.findCustomerPage(pageable)
+                    : customerRepository.findPage(pageable).map(customerMapper::toDto);
+        }
+        Slice<CustomerDTO> slice = direct != null
+                ? direct.findCustomerSlice(pageable)
+                : customerRepository.findSlice(pageable).map(customerMapper::toDto);
+        return count.complete(slice, () -> approximateCounts.count(TABLE));
+    }
+
+    public Slice<CustomerDTO> findPage(
+            Pageable pageable, Collection<String> associations, OrdersMode orders, CountMode count) {
+        Slice<CustomerDTO> page;
+        if (count == CountMode.EXACT) {
+            page = fetchGraphLoader
+                    .findPage(Customer.class, customerRepository.findPageOfIds(pageable), associations)
+                    .map(customerMapper::toDto);
+        } else {
+            page = count.complete(
+                    fetchGraphLoader
+                            .findSlice(Customer.class, customerRepository.findSliceOfIds(pageable), associations)
+                            .map(customerMapper::toDto),
+                    () -> approximateCounts.count(TABLE));
+        }
+        fillOrders(page.getContent(), orders);
+        return page;
+    }
+
+    /** Up to {@code limit} customers older than {@code after} (or the newest ones), newest first, with every order. */
+    public List<CustomerDTO> findBefore(Long after, int limit) {
+        DirectDtoQueries direct = directDtoQueries.getIfAvailable();
+        if (direct != null) {
+            return direct.findCustomersBefore(after, limit);
+        }
+        return customerRepository.findBefore(after, limit).stream()
+                .map(customerMapper::toDto)
+                .toList();
+    }
+
+    public List<CustomerDTO> findBefore(Long after, int limit, Collection<String> associations, OrdersMode orders) {
+        List<CustomerDTO> customers = fetchGraphLoader
+                .findAllById(Customer.class, customerRepository.findKeysetIds(after, limit), associations)
+                .stream()
+                .map(customerMapper::toDto)
+                .toList();
+        fillOrders(customers, orders);
+        return customers;
+    }
+
+    /** With {@code version} and {@code orderState} read in the same transaction, for the ETag. */
+    public Optional<CustomerDTO> findById(Long id, Collection<String> associations, OrdersMode orders) {
+        Optional<CustomerDTO> customer =
+                fetchGraphLoader.findById(Customer.class, id, associations).map(customerMapper::toDto);
+        customer.ifPresent(dto -> {
+            fillOrders(List.of(dto), orders);
+            customerRepository.findVersionById(id).ifPresent(stamp -> {
+                dto.setVersion(stamp.getVersion());
+                dto.setOrderState(orderState(stamp));
+            });
+        });
+        return customer;
+    }
+
+    /**
+     * Only what the customer's ETag depends on, in one statement: the version and the {@code orderState}. Empty for an
+     * unknown customer.
+     */
+    public Optional<CustomerDTO> findVersion(Long id) {
+        return customerRepository.findVersionById(id).map(stamp -> {
+            CustomerDTO customer = new CustomerDTO();
+            customer.setId(id);
+            customer.setVersion(stamp.getVersion());
+            customer.setOrderState(orderState(stamp));
+            return customer;
+        });
+    }
+
+    /**
+     * Keyset page of the customer's orders, newest first.
+     *
+     * @throws NotFoundException if there is no such customer
+     */
+    public List<CustomerOrderDTO> findOrders(Long id, Long after, int limit) {
+        List<CustomerOrderDTO> orders = orderRepository.findOfCustomer(id, after, limit).stream()
+                .map(customerMapper::toOrderDto)
+                .toList();
+        if (orders.isEmpty() && after == null && !customerRepository.existsById(id)) {
+            throw new NotFoundException("Unknown customer " + id);
+        }
+        return orders;
+    }
+
+    /** Ranked by similarity in the database; see {@link CustomerRepository#searchRankedByName}. */
+    public Page<CustomerSummaryDTO> searchByName(String query, Pageable pageable) {
+        return customerRepository.searchRankedByName(query, pageable).map(customerMapper::toSummaryDto);
+    }
+
+    @Transactional
+    public Long create(CustomerDTO customerDto) {
+        Customer customer = customerMapper.toEntity(customerDto);
+        customerRepository.save(customer);
+        storeStatistics.recordCustomer();
+        return customer.getId();
+    }
+
+    private static List<Long> orderState(CustomerVersionView stamp) {
+        return Arrays.asList(stamp.getOrderCount(), stamp.getLatestOrderId());
+    }
+
+    private void fillOrders(List<CustomerDTO> customers, OrdersMode orders) {
+        switch (orders) {
+            case PREVIEW -> customerOrderPreviews.fillPreviews(customers);
+            case COUNT -> customerOrderPreviews.fillCounts(customers);
+            case ALL -> {}
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.store.service;
+
+import com.example.store.dto.OrderBatchResponseDTO;
+import com.example.store.dto.OrderBatchResultDTO;
+import com.example.store.dto.OrderDTO;
+import com.example.store.dto.OrderProductDTO;
+import com.example.store.entity.Customer;
+import com.example.store.entity.Order;
+import com.example.store.entity.Product;
+import com.example.store.exception.BadRequestException;
+import com.example.store.repository.CustomerRepository;
+import com.example.store.repository.OrderRepository;
+import com.example.store.repository.ProductRepository;
+import com.example.store.stats.StoreStatistics;
+
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Inserts many orders in one transaction using JDBC batching. Items that fail validation or reference unknown
+ * customers/products are rejected individually; the rest are persisted and flushed every {@code jdbc.batch_size}
+ * orders so that Hibernate sends the {@code "order"} and {@code order_product} inserts as batches.
+ */
+@Service
+@RequiredArgsConstructor
+public class OrderBatchService {
+
+    /** Keeps the id lookups well under PostgreSQL's limit of 32767 bind parameters per statement. */
+    private static final int ID_LOOKUP_CHUNK = 10_000;
+
+    private final OrderRepository orderRepository;
+    private final CustomerRepository customerRepository;
+    private final ProductRepository productRepository;
+    private final Validator validator;
+    private final EntityManager entityManager;
+    private final StoreStatistics storeStatistics;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+    @Value("${store.orders.batch.max-size:10000}")
+    private int maxBatchSize;
+
+    @Transactional
+    public OrderBatchResponseDTO createAll(List<OrderDTO> orderDtos) {
+        if (orderDtos.isEmpty()) {
+            throw new BadRequestException("Batch must contain at least one order");
+        }
+        if (orderDtos.size() > maxBatchSize) {
+            throw new BadRequestException("Batch must not contain more than " + maxBatchSize + " orders");
+        }
+
+        OrderBatchResultDTO[] results = new OrderBatchResultDTO[orderDtos.size()];
+        List<Integer> candidates = new ArrayList<>(orderDtos.size());
+        for (int i = 0; i < orderDtos.size(); i++) {
+            String problem = validate(orderDtos.get(i));
+            if (problem == null) {
+                candidates.add(i);
+            } else {
+                results[i] = OrderBatchResultDTO.rejected(i, problem);
+            }
+        }
+
+        Set<Long> customers = existing(
+                candidates.stream()
+                        .map(i -> orderDtos.get(i).getCustomer().getId())
+                        .collect(Collectors.toSet()),
+                customerRepository::findExistingIds);
+        Set<Long> products = existing(
+                candidates.stream()
+                        .flatMap(i -> orderDtos.get(i).getProducts().stream())
+                        .map(OrderProductDTO::getId)
+                        .collect(Collectors.toSet()),
+                productRepository::findExistingIds);
+
+        List<OrderDTO> created = new ArrayList<>();
+        int pending = 0;
+        for (int i : candidates) {
+            OrderDTO dto = orderDtos.get(i);
+            if (!customers.contains(dto.getCustomer().getId())) {
+                results[i] = OrderBatchResultDTO.rejected(i, "Unknown customer id " + dto.getCustomer().getId());
+                continue;
+            }
+            Long unknownProduct = dto.getProducts().stream()
+                    .map(OrderProductDTO::getId)
+                    .filter(id -> !products.contains(id))
+                    .findFirst()
+                    .orElse(null);
+            if (unknownProduct != null) {
+                results[i] = OrderBatchResultDTO.rejected(i, "Unknown product id " + unknownProduct);
+                continue;
+            }
+
+            Order order = toEntity(dto);
+            orderRepository.save(order);
+            results[i] = OrderBatchResultDTO.created(i, order.getId());
+            created.add(dto);
+            if (++pending == batchSize) {
+                entityManager.flush();
+                entityManager.clear();
+                pending = 0;
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        storeStatistics.recordOrders(created);
+
+        return new OrderBatchResponseDTO(
+                created.size(), orderDtos.size() - created.size(), Arrays.asList(results));
+    }
+
+    private String validate(OrderDTO dto) {
+        if (dto == null) {
+            return "order is required";
+        }
+        Set<ConstraintViolation<OrderDTO>> violations = validator.validate(dto);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining(", "));
+        }
+        if (dto.getCustomer().getId() == null) {
+            return "customer id is required";
+        }
+        if (dto.getProducts().stream().anyMatch(p -> p == null || p.getId() == null)) {
+            return "product id is required";
+        }
+        return null;
+    }
+
+    /** Customers and products are attached as uninitialised references, so no SELECT is issued for them. */
+    private Order toEntity(OrderDTO dto) {
+        Order order = new Order();
+        order.setDescription(dto.getDescription());
+        order.setCustomer(entityManager.getReference(Customer.class, dto.getCustomer().getId()));
+        order.setProducts(dto.getProducts().stream()
+                .map(OrderProductDTO::getId)
+                .distinct()
+                .map(id -> entityManager.getReference(Product.class, id))
+                .collect(Collectors.toCollection(ArrayList::new)));
+        return order;
+    }
+
+    private static Set<Long> existing(Collection<Long> ids, Function<Collection<Long>, Set<Long>> lookup) {
+        Set<Long> found = new HashSet<>(ids.size());
+        forChunks(ids, chunk -> found.addAll(lookup.apply(chunk)));
+        return found;
+    }
+
+    private static void forChunks(Collection<Long> ids, Consumer<Collection<Long>> action) {
+        List<Long> all = new ArrayList<>(ids);
+        for (int from = 0; from < all.size(); from += ID_LOOKUP_CHUNK) {
+            action.accept(all.subList(from, Math.min(from + ID_LOOKUP_CHUNK, all.size())));
+        }
+    }
+}
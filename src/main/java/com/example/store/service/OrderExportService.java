@@ -0,0 +1,72 @@
+package com.example.store.service;
+
+import com.example.store.dto.OrderDTO;
+import com.example.store.entity.Order;
+import com.example.store.mapper.OrderMapper;
+import com.example.store.repository.OrderRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import jakarta.persistence.EntityManager;
+
+import lombok.RequiredArgsConstructor;
+
+import org.hibernate.Hibernate;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/** Writes every order as newline-delimited JSON from a forward-only cursor, in constant memory. */
+@Service
+@RequiredArgsConstructor
+public class OrderExportService {
+
+    /**
+     * Orders are mapped in chunks rather than one at a time so that the lazy {@code products} collections of a chunk
+     * are initialised together by Hibernate's batch fetching ({@code default_batch_fetch_size}) instead of one query
+     * per order. The mappers skip unloaded associations, so they are initialised explicitly before mapping. The
+     * persistence context is cleared after every chunk to keep the heap flat.
+     */
+    private static final int CHUNK_SIZE = 500;
+
+    private static final byte NEWLINE = '\n';
+
+    private final OrderRepository orderRepository;
+    private final OrderMapper orderMapper;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+
+    @Transactional(readOnly = true)
+    public void exportTo(OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(OrderDTO.class);
+        List<Order> chunk = new ArrayList<>(CHUNK_SIZE);
+        try (Stream<Order> orders = orderRepository.streamAll()) {
+            Iterator<Order> iterator = orders.iterator();
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() == CHUNK_SIZE) {
+                    writeChunk(chunk, writer, out);
+                }
+            }
+        }
+        writeChunk(chunk, writer, out);
+    }
+
+    private void writeChunk(List<Order> chunk, ObjectWriter writer, OutputStream out) throws IOException {
+        chunk.forEach(order -> Hibernate.initialize(order.getProducts()));
+        for (Order order : chunk) {
+            out.write(writer.writeValueAsBytes(orderMapper.toDto(order)));
+            out.write(NEWLINE);
+        }
+        out.flush();
+        chunk.clear();
+        entityManager.clear();
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.store.service;
+
+import com.example.store.dto.OrderDTO;
+import com.example.store.dto.OrderProductDTO;
+import com.example.store.entity.Order;
+import com.example.store.mapper.OrderMapper;
+import com.example.store.repository.ApproximateCounts;
+import com.example.store.repository.CustomerRepository;
+import com.example.store.repository.DirectDtoQueries;
+import com.example.store.repository.FetchGraphLoader;
+import com.example.store.repository.OrderRepository;
+import com.example.store.repository.ProductRepository;
+import com.example.store.stats.StoreStatistics;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Order reads and single-order creation. Reads run in read-only transactions and return mapped DTOs, so entities never
+ * leave the transaction and the connection is returned to the pool before the response is serialized. Methods taking
+ * {@code associations} load just those with a fetch graph, for sparse fieldsets.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class OrderService {
+
+    private static final String TABLE = "\"order\"";
+
+    private final OrderRepository orderRepository;
+    private final CustomerRepository customerRepository;
+    private final ProductRepository productRepository;
+    private final OrderMapper orderMapper;
+    private final FetchGraphLoader fetchGraphLoader;
+    private final ApproximateCounts approximateCounts;
+    private final StoreStatistics storeStatistics;
+    private final ObjectProvider<DirectDtoQueries> directDtoQueries;
+
+    public Slice<OrderDTO> findPage(Pageable pageable, CountMode count) {
+        DirectDtoQueries direct = directDtoQueries.getIfAvailable();
+        if (count == CountMode.EXACT) {
+            return direct != null
+                    ? direct.findOrderPage(pageable)
+                    : orderRepository.findPage(pageable).map(orderMapper::toDto);
+        }
+        Slice<OrderDTO> slice = direct != null
+                ? direct.findOrderSlice(pageable)
+                : orderRepository.findSlice(pageable).map(orderMapper::toDto);
+        return count.complete(slice, () -> approximateCounts.count(TABLE));
+    }
+
+    public Slice<OrderDTO> findPage(Pageable pageable, Collection<String> associations, CountMode count) {
+        if (count == CountMode.EXACT) {
+            return fetchGraphLoader
+                    .findPage(Order.class, orderRepository.findPageOfIds(pageable), associations)
+                    .map(orderMapper::toDto);
+        }
+        Slice<OrderDTO> slice = fetchGraphLoader
+                .findSlice(Order.class, orderRepository.findSliceOfIds(pageable), associations)
+                .map(orderMapper::toDto);
+        return count.complete(slice, () -> approximateCounts.count(TABLE));
+    }
+
+    /** Up to {@code limit} orders older than {@code after} (or the newest ones), newest first. */
+    public List<OrderDTO> findBefore(Long after, int limit) {
+        DirectDtoQueries direct = directDtoQueries.getIfAvailable();
+        if (direct != null) {
+            return direct.findOrdersBefore(after, limit);
+        }
+        return orderRepository.findBefore(after, limit).stream()
+                .map(orderMapper::toDto)
+                .toList();
+    }
+
+    public List<OrderDTO> findBefore(Long after, int limit, Collection<String> associations) {
+        return fetchGraphLoader
+                .findAllById(Order.class, orderRepository.findKeysetIds(after, limit), associations)
+                .stream()
+                .map(orderMapper::toDto)
+                .toList();
+    }
+
+    public Optional<OrderDTO> findById(Long id) {
+        return orderRepository.findById(id).map(orderMapper::toDto);
+    }
+
+    public Optional<OrderDTO> findById(Long id, Collection<String> associations) {
+        return fetchGraphLoader.findById(Order.class, id, associations).map(orderMapper::toDto);
+    }
+
+    public Optional<Long> findVersion(Long id) {
+        return orderRepository.findVersionById(id);
+    }
+
+    /**
+     * Creates the order and, in the same transaction, counts it in the statistics. Its customer and products are left
+     * alone: their ETags include the state of their orders. Returns the new id.
+     */
+    @Transactional
+    public Long create(OrderDTO orderDto) {
+        Order order = orderMapper.toEntity(orderDto);
+        attachReferences(order);
+        orderRepository.save(order);
+        storeStatistics.recordOrders(List.of(orderDto));
+        return order.getId();
+    }
+
+    /** The distinct product ids referenced by {@code orderDtos}. */
+    public static List<Long> productIds(List<OrderDTO> orderDtos) {
+        return orderDtos.stream()
+                .filter(o -> o != null && o.getProducts() != null)
+                .flatMap(o -> o.getProducts().stream())
+                .filter(p -> p != null && p.getId() != null)
+                .map(OrderProductDTO::getId)
+                .distinct()
+                .toList();
+    }
+
+    /**
+     * The mapped customer and products only carry ids. With {@code @Version} mapped, an entity with a null version is
+     * taken for a new one, so replace them with references to the persistent rows.
+     */
+    private void attachReferences(Order order) {
+        if (order.getCustomer() != null && order.getCustomer().getId() != null) {
+            order.setCustomer(customerRepository.getReferenceById(order.getCustomer().getId()));
+        }
+        if (order.getProducts() != null) {
+            order.setProducts(order.getProducts().stream()
+                    .map(p -> p.getId() == null ? p : productRepository.getReferenceById(p.getId()))
+                    .collect(Collectors.toCollection(ArrayList::new)));
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.store.service;
+
+import com.example.store.cache.DtoCache;
+import com.example.store.dto.OrderBatchResponseDTO;
+import com.example.store.dto.OrderBatchResultDTO;
+import com.example.store.dto.OrderDTO;
+import com.example.store.dto.OrderProductDTO;
+import com.example.store.dto.OrderSubmissionDTO;
+import com.example.store.exception.SubmissionRejectedException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind for {@code POST /orders} ({@code store.orders.async.enabled}). Accepted orders wait in a bounded queue
+ * and a single writer thread persists them through {@link OrderBatchService} in batches of up to {@code max-batch-size}
+ * orders, or whatever arrived within {@code max-delay} of the first one, so one commit covers many orders. A batch
+ * that fails is split and retried, so only the orders that fail on their own are marked failed. A full queue is
+ * answered with {@code 429}.
+ *
+ * <p>The outcome of each submission is kept for {@code status-ttl} in memory, so the status URL is only served by the
+ * instance that accepted the order. On shutdown the queue stops accepting orders and is drained before the
+ * connection pool closes.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "store.orders.async.enabled", havingValue = "true")
+public class OrderSubmissionQueue implements SmartLifecycle {
+
+    private record Submission(String id, OrderDTO order) {}
+
+    private final OrderBatchService orderBatchService;
+    private final DtoCache dtoCache;
+    private final BlockingQueue<Submission> queue;
+    private final Cache<String, OrderSubmissionDTO> statuses;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public OrderSubmissionQueue(
+            OrderBatchService orderBatchService,
+            DtoCache dtoCache,
+            MeterRegistry meterRegistry,
+            @Value("${store.orders.async.queue-capacity:10000}") int queueCapacity,
+            @Value("${store.orders.async.max-batch-size:500}") int maxBatchSize,
+            @Value("${store.orders.async.max-delay:50ms}") Duration maxDelay,
+            @Value("${store.orders.async.status-ttl:10m}") Duration statusTtl) {
+        this.orderBatchService = orderBatchService;
+        this.dtoCache = dtoCache;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        // Pending entries are bounded by the queue; finished ones by the TTL and the size limit
+        this.statuses = Caffeine.newBuilder()
+                .maximumSize(Math.max(100_000L, 10L * queueCapacity))
+                .expireAfterWrite(statusTtl)
+                .build();
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = maxDelay.toNanos();
+        Gauge.builder("store.orders.async.queue.size", queue, BlockingQueue::size)
+                .description("Orders accepted but not yet persisted")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues a validated order and returns its submission id.
+     *
+     * @throws SubmissionRejectedException when the queue is full, or while shutting down
+     */
+    public String submit(OrderDTO order) {
+        Submission submission = new Submission(UUID.randomUUID().toString(), order);
+        statuses.put(submission.id(), OrderSubmissionDTO.pending(submission.id()));
+        boolean queued;
+        // Checked together with the offer, so nothing is queued after stop() has let the writer finish
+        synchronized (this) {
+            if (!running) {
+                statuses.invalidate(submission.id());
+                throw new SubmissionRejectedException(
+                        SubmissionRejectedException.Reason.SHUTTING_DOWN, "Order submission is shutting down");
+            }
+            queued = queue.offer(submission);
+        }
+        if (!queued) {
+            statuses.invalidate(submission.id());
+            throw new SubmissionRejectedException(
+                    SubmissionRejectedException.Reason.QUEUE_FULL, "Order queue is full, retry later");
+        }
+        return submission.id();
+    }
+
+    /** The status of a submission, or {@code null} if it is unknown or has expired. */
+    public OrderSubmissionDTO status(String id) {
+        return statuses.getIfPresent(id);
+    }
+
+    @Override
+    public synchronized void start() {
+        running = true;
+        writer = new Thread(this::writeLoop, "order-write-behind");
+        writer.start();
+    }
+
+    @Override
+    public void stop() {
+        synchronized (this) {
+            running = false;
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Stopped after the web server (lower phases stop later), so requests still in flight during a graceful shutdown
+     * can queue their orders, and before the singletons such as the data source are destroyed.
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void writeLoop() {
+        // Keeps going after stop() until the queue is empty
+        while (running || !queue.isEmpty()) {
+            List<Submission> batch = nextBatch();
+            if (!batch.isEmpty()) {
+                write(batch);
+            }
+        }
+        log.info("Order write-behind stopped");
+    }
+
+    /** Waits briefly for a first order, then collects more until the batch is full or {@code max-delay} has passed. */
+    private List<Submission> nextBatch() {
+        List<Submission> batch = new ArrayList<>(maxBatchSize);
+        try {
+            Submission first = queue.poll(100, TimeUnit.MILLISECONDS);
+            if (first == null) {
+                return batch;
+            }
+            batch.add(first);
+            long deadline = System.nanoTime() + maxDelayNanos;
+            while (batch.size() < maxBatchSize) {
+                long remaining = deadline - System.nanoTime();
+                Submission next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                if (next == null) {
+                    break;
+                }
+                batch.add(next);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return batch;
+    }
+
+    private void write(List<Submission> batch) {
+        List<OrderDTO> orders = batch.stream().map(Submission::order).toList();
+        try {
+            OrderBatchResponseDTO response = orderBatchService.createAll(orders);
+            for (OrderBatchResultDTO result : response.getResults()) {
+                String id = batch.get(result.getIndex()).id();
+                statuses.put(
+                        id,
+                        result.getStatus() == OrderBatchResultDTO.Status.CREATED
+                                ? new OrderSubmissionDTO(id, OrderSubmissionDTO.Status.CREATED, result.getId(), null)
+                                : new OrderSubmissionDTO(
+                                        id, OrderSubmissionDTO.Status.REJECTED, null, result.getMessage()));
+            }
+            dtoCache.invalidateProducts(orders.stream()
+                    .flatMap(order -> order.getProducts().stream())
+                    .filter(Objects::nonNull)
+                    .map(OrderProductDTO::getId)
+                    .filter(Objects::nonNull)
+                    .distinct()
+                    .toList());
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                Submission failed = batch.get(0);
+                log.error("Failed to write order submission {}", failed.id(), e);
+                statuses.put(
+                        failed.id(),
+                        new OrderSubmissionDTO(failed.id(), OrderSubmissionDTO.Status.FAILED, null, e.getMessage()));
+                return;
+            }
+            // The batch was rolled back as a whole; halving it isolates the orders that fail in a few more commits
+            log.warn("Failed to write a batch of {} orders, retrying it in halves", batch.size(), e);
+            int half = batch.size() / 2;
+            write(batch.subList(0, half));
+            write(batch.subList(half, batch.size()));
+        }
+    }
+}
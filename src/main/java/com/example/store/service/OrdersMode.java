@@ -0,0 +1,11 @@
+package com.example.store.service;
+
+/** How a customer representation carries its orders ({@code ?orders=all|preview|count}). */
+public enum OrdersMode {
+    /** Every order, from the {@code orders} association. */
+    ALL,
+    /** The newest few orders only. */
+    PREVIEW,
+    /** The number of orders, as {@code orderCount}. */
+    COUNT
+}
@@ -0,0 +1,138 @@
+package com.example.store.service;
+
+import com.example.store.dto.ProductDTO;
+import com.example.store.entity.Product;
+import com.example.store.exception.NotFoundException;
+import com.example.store.mapper.ProductMapper;
+import com.example.store.repository.ApproximateCounts;
+import com.example.store.repository.DirectDtoQueries;
+import com.example.store.repository.OrderIdPreviews;
+import com.example.store.repository.ProductRepository;
+import com.example.store.repository.ProductVersionView;
+import com.example.store.stats.StoreStatistics;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Product reads and creation; reads run in read-only transactions and return mapped DTOs. The {@code orderIds} preview
+ * costs a statement of its own ({@link OrderIdPreviews}), so callers say whether they need it.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class ProductService {
+
+    private static final String TABLE = "product";
+
+    private final ProductRepository productRepository;
+    private final ProductMapper productMapper;
+    private final OrderIdPreviews orderIdPreviews;
+    private final ApproximateCounts approximateCounts;
+    private final StoreStatistics storeStatistics;
+    private final ObjectProvider<DirectDtoQueries> directDtoQueries;
+
+    /** The full representation, including {@code orderIds}. */
+    public Slice<ProductDTO> findPage(Pageable pageable, CountMode count) {
+        DirectDtoQueries direct = directDtoQueries.getIfAvailable();
+        if (direct == null) {
+            return findPage(pageable, true, count);
+        }
+        return count == CountMode.EXACT
+                ? direct.findProductPage(pageable)
+                : count.complete(direct.findProductSlice(pageable), () -> approximateCounts.count(TABLE));
+    }
+
+    public Slice<ProductDTO> findPage(Pageable pageable, boolean withOrderIds, CountMode count) {
+        Slice<ProductDTO> page = count == CountMode.EXACT
+                ? productRepository.findPage(pageable).map(productMapper::toDto)
+                : count.complete(
+                        productRepository.findSlice(pageable).map(productMapper::toDto),
+                        () -> approximateCounts.count(TABLE));
+        fillOrderIds(page.getContent(), withOrderIds);
+        return page;
+    }
+
+    /** Up to {@code limit} products older than {@code after} (or the newest ones), newest first, with order ids. */
+    public List<ProductDTO> findBefore(Long after, int limit) {
+        DirectDtoQueries direct = directDtoQueries.getIfAvailable();
+        return direct != null ? direct.findProductsBefore(after, limit) : findBefore(after, limit, true);
+    }
+
+    public List<ProductDTO> findBefore(Long after, int limit, boolean withOrderIds) {
+        List<ProductDTO> products = productRepository.findBefore(after, limit).stream()
+                .map(productMapper::toDto)
+                .toList();
+        fillOrderIds(products, withOrderIds);
+        return products;
+    }
+
+    public Optional<ProductDTO> findById(Long id, boolean withOrderIds) {
+        Optional<ProductDTO> product = productRepository.findById(id).map(productMapper::toDto);
+        product.ifPresent(dto -> fillOrderIds(List.of(dto), withOrderIds));
+        return product;
+    }
+
+    /**
+     * Only what the product's ETag depends on, in one statement: the version, and the {@code orderIds} preview when
+     * {@code withOrderIds}. Empty for an unknown product.
+     */
+    public Optional<ProductDTO> findVersion(Long id, boolean withOrderIds) {
+        if (!withOrderIds) {
+            return productRepository.findVersionById(id).map(version -> versionOf(id, version, null));
+        }
+        List<ProductVersionView> rows = productRepository.findVersionWithOrderIds(id, orderIdPreviews.limit());
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+        List<Long> orderIds = rows.stream()
+                .map(ProductVersionView::getOrderId)
+                .filter(Objects::nonNull)
+                .toList();
+        return Optional.of(versionOf(id, rows.get(0).getVersion(), orderIds));
+    }
+
+    /**
+     * Keyset page of the ids of the orders containing the product, newest first.
+     *
+     * @throws NotFoundException if there is no such product
+     */
+    public List<Long> findOrderIds(Long id, Long after, int limit) {
+        List<Long> orderIds = productRepository.findOrderIds(id, after, limit);
+        if (orderIds.isEmpty() && after == null && !productRepository.existsById(id)) {
+            throw new NotFoundException("Unknown product " + id);
+        }
+        return orderIds;
+    }
+
+    @Transactional
+    public Long create(ProductDTO productDto) {
+        Product product = productMapper.toEntity(productDto);
+        productRepository.save(product);
+        storeStatistics.recordProduct();
+        return product.getId();
+    }
+
+    private static ProductDTO versionOf(Long id, Long version, List<Long> orderIds) {
+        ProductDTO product = new ProductDTO();
+        product.setId(id);
+        product.setVersion(version);
+        product.setOrderIds(orderIds);
+        return product;
+    }
+
+    private void fillOrderIds(List<ProductDTO> products, boolean withOrderIds) {
+        if (withOrderIds) {
+            orderIdPreviews.fill(products);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.store.stats;
+
+import com.example.store.dto.CustomerOrderCountDTO;
+import com.example.store.dto.OrderDTO;
+import com.example.store.dto.OrderProductDTO;
+import com.example.store.dto.ProductOrderCountDTO;
+import com.example.store.dto.StatsDTO;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Aggregates served by {@code GET /stats}, maintained incrementally so that reading them never touches the order
+ * tables.
+ *
+ * <p>Creating rows only appends their counts to {@code stats_delta}, in the transaction that creates them
+ * ({@link #recordOrders}): inserts never wait on each other, where updating the counters of a popular product in every
+ * order would serialise those orders on its row. Every {@code rollup-interval}, one instance at a time sums the deltas
+ * into the per-customer and per-product {@code order_count} columns and the {@code store_totals} table, and deletes
+ * them ({@link #rollUp}), so each counter row is updated at most once per roll-up and no table is ever recounted. The
+ * top customers and products are an index scan of {@code topN} rows, and the totals four rows; both are combined into
+ * an immutable snapshot every {@code refresh-interval}, which reads return as is.
+ */
+@Slf4j
+@Component
+public class StoreStatistics {
+
+    private static final String INSERT_DELTA = "INSERT INTO stats_delta (kind, id, n) VALUES (?, ?, ?)";
+    private static final int[] DELTA_TYPES = {Types.VARCHAR, Types.BIGINT, Types.BIGINT};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int topN;
+
+    private volatile StatsDTO snapshot;
+
+    public StoreStatistics(JdbcTemplate jdbcTemplate, @Value("${store.stats.top:10}") int topN) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.topN = topN;
+    }
+
+    /** The latest snapshot, or {@code null} until the application is ready. */
+    public StatsDTO snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Counts {@code orders}, just persisted in the current (or a new) transaction, against their customers and
+     * products and the totals: one batch of inserts, which the roll-up only sees once the transaction commits.
+     */
+    @Transactional
+    public void recordOrders(Collection<OrderDTO> orders) {
+        Map<Long, Long> perCustomer = new HashMap<>();
+        Map<Long, Long> perProduct = new HashMap<>();
+        long lines = 0;
+        for (OrderDTO order : orders) {
+            if (order.getCustomer().getId() != null) {
+                perCustomer.merge(order.getCustomer().getId(), 1L, Long::sum);
+            }
+            List<Long> productIds = order.getProducts().stream()
+                    .filter(Objects::nonNull)
+                    .map(OrderProductDTO::getId)
+                    .filter(Objects::nonNull)
+                    .distinct()
+                    .toList();
+            productIds.forEach(id -> perProduct.merge(id, 1L, Long::sum));
+            lines += productIds.size();
+        }
+        List<Object[]> deltas = new ArrayList<>(perCustomer.size() + perProduct.size() + 2);
+        perCustomer.forEach((id, n) -> deltas.add(new Object[] {"customer_orders", id, n}));
+        perProduct.forEach((id, n) -> deltas.add(new Object[] {"product_orders", id, n}));
+        deltas.add(new Object[] {"orders", null, (long) orders.size()});
+        deltas.add(new Object[] {"order_lines", null, lines});
+        jdbcTemplate.batchUpdate(INSERT_DELTA, deltas, DELTA_TYPES);
+    }
+
+    @Transactional
+    public void recordCustomer() {
+        jdbcTemplate.update(INSERT_DELTA, new Object[] {"customers", null, 1L}, DELTA_TYPES);
+    }
+
+    @Transactional
+    public void recordProduct() {
+        jdbcTemplate.update(INSERT_DELTA, new Object[] {"products", null, 1L}, DELTA_TYPES);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        rollUp();
+        refresh();
+    }
+
+    /**
+     * Moves the committed deltas into the counters, in one statement. Instances that find another one rolling up skip
+     * the round instead of waiting on its row locks; deltas committed meanwhile are left for the next one.
+     */
+    @Scheduled(
+            fixedDelayString = "${store.stats.rollup-interval:PT5S}",
+            initialDelayString = "${store.stats.rollup-interval:PT5S}")
+    public void rollUp() {
+        Long rows = jdbcTemplate.queryForObject(
+                """
+                WITH locked AS (
+                  SELECT pg_try_advisory_xact_lock(hashtext('stats_delta')) AS ok
+                ), taken AS (
+                  DELETE FROM stats_delta WHERE (SELECT ok FROM locked) RETURNING kind, id, n
+                ), summed AS (
+                  SELECT kind, id, SUM(n) AS n FROM taken GROUP BY kind, id
+                ), customers AS (
+                  UPDATE customer c SET order_count = c.order_count + s.n
+                  FROM summed s WHERE s.kind = 'customer_orders' AND c.id = s.id
+                ), products AS (
+                  UPDATE product p SET order_count = p.order_count + s.n
+                  FROM summed s WHERE s.kind = 'product_orders' AND p.id = s.id
+                ), totals AS (
+                  UPDATE store_totals t SET value = t.value + s.n
+                  FROM summed s WHERE s.id IS NULL AND t.name = s.kind
+                )
+                SELECT COUNT(*) FROM taken
+                """,
+                Long.class);
+        log.debug("Rolled up {} statistics deltas", rows);
+    }
+
+    @Scheduled(
+            fixedDelayString = "${store.stats.refresh-interval:PT10S}",
+            initialDelayString = "${store.stats.refresh-interval:PT10S}")
+    public void refresh() {
+        List<ProductOrderCountDTO> topProducts = jdbcTemplate.query(
+                "SELECT id, description, order_count FROM product ORDER BY order_count DESC, id DESC LIMIT ?",
+                (rs, rowNum) -> new ProductOrderCountDTO(
+                        rs.getLong("id"), rs.getString("description"), rs.getLong("order_count")),
+                topN);
+        List<CustomerOrderCountDTO> topCustomers = jdbcTemplate.query(
+                "SELECT id, name, order_count FROM customer ORDER BY order_count DESC, id DESC LIMIT ?",
+                (rs, rowNum) ->
+                        new CustomerOrderCountDTO(rs.getLong("id"), rs.getString("name"), rs.getLong("order_count")),
+                topN);
+        Map<String, Long> totals = new HashMap<>();
+        jdbcTemplate.query("SELECT name, value FROM store_totals", rs -> {
+            totals.put(rs.getString("name"), rs.getLong("value"));
+        });
+        long customers = totals.getOrDefault("customers", 0L);
+        long orders = totals.getOrDefault("orders", 0L);
+        snapshot = new StatsDTO(
+                customers,
+                orders,
+                totals.getOrDefault("products", 0L),
+                totals.getOrDefault("order_lines", 0L),
+                customers == 0 ? 0 : (double) orders / customers,
+                topProducts,
+                topCustomers,
+                Instant.now());
+    }
+}
@@ -0,0 +1,17 @@
+-- Pooled id allocation.
+-- IDENTITY generation forces Hibernate to insert each row immediately to learn its id,
+-- which silently disables JDBC batching. The entities now use SEQUENCE generators with
+-- allocationSize = 50, so one nextval() call reserves a block of 50 ids and inserts can
+-- be batched. The sequence INCREMENT must match the allocationSize (Hibernate validates it).
+--
+-- Hibernate's pooled optimizer treats the value returned by nextval() as the top of the
+-- block (it hands out value - 49 .. value), so each sequence is moved to MAX(id) + 50 to
+-- keep the first block clear of the ids that already exist.
+ALTER SEQUENCE customer_id_seq INCREMENT BY 50;
+SELECT setval('customer_id_seq', (SELECT COALESCE(MAX(id), 0) FROM customer) + 50, false);
+
+ALTER SEQUENCE order_id_seq INCREMENT BY 50;
+SELECT setval('order_id_seq', (SELECT COALESCE(MAX(id), 0) FROM "order") + 50, false);
+
+ALTER SEQUENCE product_id_seq INCREMENT BY 50;
+SELECT setval('product_id_seq', (SELECT COALESCE(MAX(id), 0) FROM product) + 50, false);
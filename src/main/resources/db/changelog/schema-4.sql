@@ -0,0 +1,7 @@
+-- Optimistic version columns, incremented by Hibernate (@Version) on every update and never
+-- by hand. Strong ETags on the GET-by-id endpoints are derived from them: an order's is the
+-- version alone, a product's combines it with a hash of its newest order ids, which change
+-- without the product row changing, so creating orders never updates or locks products.
+ALTER TABLE customer ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE "order" ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE product ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,10 @@
+-- Order ids of a product, newest first.
+-- Product representations read their newest order ids straight from order_product, bounded
+-- by a LIMIT per product, and GET /products/{id}/orders pages through them by order_id.
+-- With (product_id, order_id) both are a short backward index-only scan whatever the
+-- number of orders of the product. It also covers every lookup by product_id alone, so
+-- the single-column index is dropped.
+CREATE INDEX IF NOT EXISTS idx_order_product_product_order
+  ON order_product(product_id, order_id);
+
+DROP INDEX IF EXISTS idx_order_product_product_id;
@@ -0,0 +1,10 @@
+-- Orders of a customer, newest first.
+-- GET /customers/{id}/orders pages by id within a customer, and the customer listing can embed
+-- each customer's newest orders with a LIMIT per customer. Rows with equal keys in a
+-- single-column index are not kept in id order, so both would read and sort every order of
+-- the customer; with (customer_id, id) they are a short backward index scan. The index keeps
+-- its name and still serves every lookup by customer_id alone.
+DROP INDEX IF EXISTS idx_order_customer_id;
+
+CREATE INDEX IF NOT EXISTS idx_order_customer_id
+    ON "order"(customer_id, id);
@@ -0,0 +1,106 @@
+-- Range partitioning of "order" by id and order_product by order_id (opt-in, see db.changelog-9.yaml).
+-- Ids come from one sequence, so a range of ids is a range of time: new orders all go to the
+-- newest partition, whose indexes stay small and cached, and old partitions are left alone by
+-- autovacuum once they stop changing. Every lookup by order id (by id, If-None-Match, the
+-- graph of a page, order_product by order_id) prunes to the one partition holding the id.
+-- Hashing by customer_id would prune the customer's orders instead, but spread every insert
+-- over all partitions and leave lookups by id scanning all of them.
+--
+-- Both tables use the same bounds, so the partitions of order_product pair up with those of
+-- "order". The existing tables become the first partitions, covering every id up to the next
+-- multiple of the partition size above the sequence; no rows are copied, but attaching them
+-- scans both tables and validates fk_op_order under an exclusive lock, so run it in a
+-- maintenance window. create_order_partitions() adds the partitions after it.
+
+-- Creates partitions of partition_size ids after the last one until one ends above up_to, and
+-- returns how many it created. Run by OrderPartitions ahead of the sequence; also safe by hand.
+CREATE OR REPLACE FUNCTION create_order_partitions(up_to BIGINT, partition_size BIGINT)
+RETURNS INT
+LANGUAGE plpgsql
+AS $$
+DECLARE
+  upper_bound BIGINT;
+  created INT := 0;
+BEGIN
+  -- Instances running this at the same time would otherwise both try to create the same partitions
+  PERFORM pg_advisory_xact_lock(hashtext('create_order_partitions'));
+
+  SELECT MAX((regexp_match(pg_get_expr(c.relpartbound, c.oid), 'TO \(''?(\d+)''?\)'))[1]::BIGINT)
+  INTO upper_bound
+  FROM pg_inherits i
+  JOIN pg_class c ON c.oid = i.inhrelid
+  WHERE i.inhparent = '"order"'::regclass;
+
+  IF upper_bound IS NULL THEN
+    RAISE EXCEPTION '"order" has no range partitions to continue from';
+  END IF;
+
+  WHILE upper_bound <= up_to LOOP
+    EXECUTE format('CREATE TABLE %I PARTITION OF "order" FOR VALUES FROM (%s) TO (%s)',
+                   'order_p' || upper_bound, upper_bound, upper_bound + partition_size);
+    EXECUTE format('CREATE TABLE %I PARTITION OF order_product FOR VALUES FROM (%s) TO (%s)',
+                   'order_product_p' || upper_bound, upper_bound, upper_bound + partition_size);
+    upper_bound := upper_bound + partition_size;
+    created := created + 1;
+  END LOOP;
+  RETURN created;
+END
+$$;
+
+-- The new parents take over the names of the tables, their constraints and their indexes
+ALTER TABLE order_product DROP CONSTRAINT fk_op_order;
+
+ALTER TABLE "order" RENAME TO order_legacy;
+ALTER TABLE order_legacy RENAME CONSTRAINT order_pkey TO order_legacy_pkey;
+ALTER INDEX idx_order_customer_id RENAME TO order_legacy_customer_id_id_idx;
+
+ALTER TABLE order_product RENAME TO order_product_legacy;
+ALTER TABLE order_product_legacy RENAME CONSTRAINT order_product_pkey TO order_product_legacy_pkey;
+ALTER INDEX idx_order_product_product_order RENAME TO order_product_legacy_product_id_order_id_idx;
+-- Covered by the primary key (order_id, product_id)
+DROP INDEX IF EXISTS idx_order_product_order_id;
+
+CREATE TABLE "order" (
+  id BIGINT NOT NULL DEFAULT nextval('order_id_seq'),
+  description VARCHAR(255) NOT NULL,
+  customer_id BIGINT NOT NULL,
+  version BIGINT NOT NULL DEFAULT 0,
+  CONSTRAINT order_pkey PRIMARY KEY (id),
+  CONSTRAINT fk_customer FOREIGN KEY (customer_id) REFERENCES customer (id)
+) PARTITION BY RANGE (id);
+
+CREATE INDEX idx_order_customer_id ON "order"(customer_id, id);
+
+ALTER SEQUENCE order_id_seq OWNED BY "order".id;
+
+CREATE TABLE order_product (
+  order_id BIGINT NOT NULL,
+  product_id BIGINT NOT NULL,
+  CONSTRAINT order_product_pkey PRIMARY KEY (order_id, product_id),
+  CONSTRAINT fk_op_order FOREIGN KEY (order_id) REFERENCES "order"(id) ON DELETE CASCADE,
+  CONSTRAINT fk_op_product FOREIGN KEY (product_id) REFERENCES product(id) ON DELETE CASCADE
+) PARTITION BY RANGE (order_id);
+
+CREATE INDEX idx_order_product_product_order ON order_product(product_id, order_id);
+
+-- Matching indexes of the attached tables become partitions of the parents' indexes instead of
+-- being built again
+DO $$
+DECLARE
+  partition_size BIGINT := ${orderPartitionSize};
+  boundary BIGINT;
+BEGIN
+  SELECT (GREATEST((SELECT COALESCE(MAX(id), 0) FROM order_legacy), s.last_value) / partition_size + 1)
+         * partition_size
+  INTO boundary
+  FROM order_id_seq s;
+
+  EXECUTE format('ALTER TABLE "order" ATTACH PARTITION order_legacy FOR VALUES FROM (MINVALUE) TO (%s)',
+                 boundary);
+  EXECUTE format('ALTER TABLE order_product ATTACH PARTITION order_product_legacy FOR VALUES FROM (MINVALUE) TO (%s)',
+                 boundary);
+  PERFORM create_order_partitions(boundary + partition_size, partition_size);
+END
+$$;
+
+ANALYZE "order", order_product;
@@ -0,0 +1,25 @@
+-- Totals and counter deltas for GET /stats.
+-- Creating rows appends to stats_delta in the same transaction instead of updating the
+-- order_count columns, so concurrent orders of a popular product or customer never wait on
+-- each other's row lock. StoreStatistics rolls the deltas up into order_count and store_totals
+-- every few seconds, on one instance at a time, so each row is updated at most once per
+-- roll-up. store_totals replaces counting the tables, and is backfilled from the existing rows.
+CREATE TABLE IF NOT EXISTS stats_delta (
+  -- customer_orders and product_orders (with the id of the row), or a store_totals name
+  kind VARCHAR(32) NOT NULL,
+  id BIGINT,
+  n BIGINT NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS store_totals (
+  name VARCHAR(32) NOT NULL,
+  value BIGINT NOT NULL,
+  CONSTRAINT store_totals_pkey PRIMARY KEY (name)
+);
+
+INSERT INTO store_totals (name, value)
+SELECT 'customers', COUNT(*) FROM customer
+UNION ALL SELECT 'orders', COUNT(*) FROM "order"
+UNION ALL SELECT 'products', COUNT(*) FROM product
+UNION ALL SELECT 'order_lines', COUNT(*) FROM order_product
+ON CONFLICT (name) DO NOTHING;
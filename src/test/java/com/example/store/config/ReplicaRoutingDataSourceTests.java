@@ -0,0 +1,172 @@
+package com.example.store.config;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.images.builder.Transferable;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Routing between two PostgreSQL instances in Testcontainers, told apart by their database names. The second one is
+ * not a streaming replica; it is only the target of read-only transactions. Skipped when Docker is not available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class ReplicaRoutingDataSourceTests {
+
+    @Container
+    static PostgreSQLContainer<?> primary = new PostgreSQLContainer<>("postgres:16").withDatabaseName("primary");
+
+    @Container
+    static PostgreSQLContainer<?> replica = new PostgreSQLContainer<>("postgres:16").withDatabaseName("replica");
+
+    /** In recovery from the start, without a primary to stream from, like a replica whose WAL receiver is down. */
+    @Container
+    static PostgreSQLContainer<?> standby = new PostgreSQLContainer<>("postgres:16")
+            .withDatabaseName("standby")
+            .withCopyToContainer(
+                    Transferable.of("touch \"$PGDATA/standby.signal\"\n"), "/docker-entrypoint-initdb.d/standby.sh")
+            .waitingFor(Wait.forLogMessage(".*database system is ready to accept read-only connections.*\\s", 1));
+
+    private ReplicaRoutingDataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = routing(Map.of("replica-1", dataSource(replica)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.close();
+    }
+
+    @Test
+    void testReadOnlyTransactionsUseTheReplica() {
+        assertThat(database(dataSource, true)).isEqualTo("replica");
+        assertThat(database(dataSource, false)).isEqualTo("primary");
+        assertThat(new JdbcTemplate(dataSource).queryForObject("SELECT current_database()", String.class))
+                .isEqualTo("primary");
+    }
+
+    @Test
+    void testUsePrimaryKeepsReadsOnThePrimary() {
+        ReplicaRoutingDataSource.usePrimary(true);
+        try {
+            assertThat(database(dataSource, true)).isEqualTo("primary");
+        } finally {
+            ReplicaRoutingDataSource.usePrimary(false);
+        }
+        assertThat(database(dataSource, true)).isEqualTo("replica");
+    }
+
+    @Test
+    void testOnPrimaryRestoresTheThreadsSetting() {
+        assertThat(ReplicaRoutingDataSource.onPrimary(() -> database(dataSource, true))).isEqualTo("primary");
+        assertThat(database(dataSource, true)).isEqualTo("replica");
+
+        ReplicaRoutingDataSource.usePrimary(true);
+        try {
+            ReplicaRoutingDataSource.onPrimary(() -> database(dataSource, true));
+            assertThat(ReplicaRoutingDataSource.isUsingPrimary()).isTrue();
+        } finally {
+            ReplicaRoutingDataSource.usePrimary(false);
+        }
+    }
+
+    @Test
+    void testUnreachableReplicaIsSkipped() {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("down", new DriverManagerDataSource("jdbc:postgresql://localhost:1/none", "none", "none"));
+        replicas.put("up", dataSource(replica));
+        try (ReplicaRoutingDataSource routing = routing(replicas)) {
+            assertThat(routing.replicaStates().get("down")).containsEntry("healthy", false);
+            assertThat(routing.replicaStates().get("up")).containsEntry("healthy", true);
+            for (int i = 0; i < 4; i++) {
+                assertThat(database(routing, true)).isEqualTo("replica");
+            }
+        }
+        try (ReplicaRoutingDataSource routing = routing(Map.of("down", replicas.get("down")))) {
+            assertThat(database(routing, true)).isEqualTo("primary");
+        }
+    }
+
+    @Test
+    void testReplicaWithoutWalReceiverIsSkipped() {
+        try (ReplicaRoutingDataSource routing = routing(Map.of("standby", dataSource(standby)))) {
+            assertThat(routing.replicaStates().get("standby"))
+                    .containsEntry("healthy", false)
+                    .containsEntry("lagSeconds", Double.POSITIVE_INFINITY);
+            assertThat(database(routing, true)).isEqualTo("primary");
+        }
+    }
+
+    @Test
+    void testReadYourWritesFilter() throws Exception {
+        ReadYourWritesFilter filter = new ReadYourWritesFilter(Duration.ofSeconds(5));
+
+        MockHttpServletResponse written = new MockHttpServletResponse();
+        assertThat(readThrough(filter, new MockHttpServletRequest("POST", "/api/v1/orders"), written))
+                .isEqualTo("primary");
+        Cookie cookie = written.getCookie(ReadYourWritesFilter.COOKIE);
+        assertThat(cookie).isNotNull();
+
+        MockHttpServletRequest followUp = new MockHttpServletRequest("GET", "/api/v1/orders");
+        followUp.setCookies(cookie);
+        assertThat(readThrough(filter, followUp, new MockHttpServletResponse())).isEqualTo("primary");
+
+        MockHttpServletRequest expired = new MockHttpServletRequest("GET", "/api/v1/orders");
+        expired.setCookies(new Cookie(ReadYourWritesFilter.COOKIE, "0"));
+        assertThat(readThrough(filter, expired, new MockHttpServletResponse())).isEqualTo("replica");
+    }
+
+    private String readThrough(
+            ReadYourWritesFilter filter, MockHttpServletRequest request, MockHttpServletResponse response)
+            throws Exception {
+        AtomicReference<String> database = new AtomicReference<>();
+        filter.doFilter(request, response, new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse res) {
+                database.set(database(dataSource, true));
+            }
+        }));
+        return database.get();
+    }
+
+    private static String database(DataSource dataSource, boolean readOnly) {
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transaction.setReadOnly(readOnly);
+        return transaction.execute(status ->
+                new JdbcTemplate(dataSource).queryForObject("SELECT current_database()", String.class));
+    }
+
+    private static ReplicaRoutingDataSource routing(Map<String, DataSource> replicas) {
+        return new ReplicaRoutingDataSource(
+                dataSource(primary), replicas, Duration.ofSeconds(5), Duration.ofMinutes(1));
+    }
+
+    private static DataSource dataSource(PostgreSQLContainer<?> container) {
+        return new DriverManagerDataSource(container.getJdbcUrl(), container.getUsername(), container.getPassword());
+    }
+}
@@ -1,9 +1,21 @@
 package com.example.store.controller;
 
 import com.example.store.dto.CustomerDTO;
+import com.example.store.dto.CustomerOrderDTO;
+import com.example.store.dto.CustomerSummaryDTO;
 import com.example.store.entity.Customer;
 import com.example.store.mapper.CustomerMapper;
+import com.example.store.repository.ApproximateCounts;
+import com.example.store.repository.CustomerNameView;
+import com.example.store.repository.CustomerOrderPreviews;
+import com.example.store.repository.CustomerOrderView;
 import com.example.store.repository.CustomerRepository;
+import com.example.store.repository.CustomerVersionView;
+import com.example.store.repository.FetchGraphLoader;
+import com.example.store.repository.OrderRepository;
+import com.example.store.service.CustomerService;
+import com.example.store.service.OrdersMode;
+import com.example.store.stats.StoreStatistics;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -11,18 +23,29 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Import;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.List;
+import java.util.Optional;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.http.HttpHeaders.ETAG;
+import static org.springframework.http.HttpHeaders.IF_NONE_MATCH;
 import static org.springframework.http.HttpHeaders.LOCATION;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -30,6 +53,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 @WebMvcTest(CustomerController.class)
 @ComponentScan(basePackageClasses = CustomerMapper.class)
+@Import(CustomerService.class)
 class CustomerControllerTests {
 
     private static final String BASE_URL = "http://localhost";
@@ -47,6 +71,21 @@ class CustomerControllerTests {
     @MockitoBean
     private CustomerMapper customerMapper;
 
+    @MockitoBean
+    private FetchGraphLoader fetchGraphLoader;
+
+    @MockitoBean
+    private OrderRepository orderRepository;
+
+    @MockitoBean
+    private CustomerOrderPreviews customerOrderPreviews;
+
+    @MockitoBean
+    private StoreStatistics storeStatistics;
+
+    @MockitoBean
+    private ApproximateCounts approximateCounts;
+
     private Customer customer;
     private CustomerDTO dto;
 
@@ -64,7 +103,7 @@ class CustomerControllerTests {
     @Test
     void testGetAllCustomers() throws Exception {
         Page<Customer> page = new PageImpl<>(List.of(customer));
-        when(customerRepository.findAll(any(PageRequest.class))).thenReturn(page);
+        when(customerRepository.findPage(any(PageRequest.class))).thenReturn(page);
         when(customerMapper.toDto(any(Customer.class))).thenReturn(dto);
 
         mockMvc.perform(get(BASE_API).param("page", "0").param("size", "20"))
@@ -73,15 +112,218 @@ class CustomerControllerTests {
                 .andExpect(jsonPath("$.content[0].name").value("John Doe"));
     }
 
+    @Test
+    void testGetCustomersByCursor() throws Exception {
+        when(customerRepository.findBefore(null, 2)).thenReturn(List.of(customer, customer));
+        when(customerMapper.toDto(any(Customer.class))).thenReturn(dto);
+
+        mockMvc.perform(get(BASE_API).param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].name").value("John Doe"))
+                .andExpect(jsonPath("$.nextCursor").value("MQ"));
+    }
+
+    @Test
+    void testGetCustomers_SparseFieldsSkipOrders() throws Exception {
+        Page<Long> ids = new PageImpl<>(List.of(1L));
+        when(customerRepository.findPageOfIds(any(PageRequest.class))).thenReturn(ids);
+        when(fetchGraphLoader.findPage(Customer.class, ids, List.of())).thenReturn(new PageImpl<>(List.of(customer)));
+        dto.setOrders(List.of(new CustomerOrderDTO()));
+        when(customerMapper.toDto(any(Customer.class))).thenReturn(dto);
+
+        mockMvc.perform(get(BASE_API).param("fields", "name"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value(1))
+                .andExpect(jsonPath("$.content[0].name").value("John Doe"))
+                .andExpect(jsonPath("$.content[0].orders").doesNotExist());
+
+        verify(customerRepository, never()).findPage(any());
+    }
+
+    @Test
+    void testGetCustomers_UnknownField() throws Exception {
+        mockMvc.perform(get(BASE_API).param("fields", "name,email"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message")
+                        .value("Unknown field 'email', expected any of [id, name, orders, orderCount]"));
+    }
+
+    @Test
+    void testGetCustomers_OrderCountWithoutLoadingOrders() throws Exception {
+        Page<Long> ids = new PageImpl<>(List.of(1L));
+        when(customerRepository.findPageOfIds(any(PageRequest.class))).thenReturn(ids);
+        when(fetchGraphLoader.findPage(Customer.class, ids, List.of())).thenReturn(new PageImpl<>(List.of(customer)));
+        when(customerMapper.toDto(any(Customer.class))).thenReturn(dto);
+        doAnswer(invocation -> {
+                    List<CustomerDTO> customers = invocation.getArgument(0);
+                    customers.forEach(c -> c.setOrderCount(12L));
+                    return null;
+                })
+                .when(customerOrderPreviews)
+                .fillCounts(anyList());
+
+        mockMvc.perform(get(BASE_API).param("orders", "count"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].orderCount").value(12))
+                .andExpect(jsonPath("$.content[0].orders").doesNotExist());
+
+        verify(customerRepository, never()).findPage(any());
+        verify(customerOrderPreviews, never()).fillPreviews(anyList());
+    }
+
+    @Test
+    void testGetCustomersByCursor_OrderPreview() throws Exception {
+        when(customerRepository.findKeysetIds(null, 21)).thenReturn(List.of(1L));
+        when(fetchGraphLoader.findAllById(Customer.class, List.of(1L), List.of())).thenReturn(List.of(customer));
+        when(customerMapper.toDto(any(Customer.class))).thenReturn(dto);
+
+        mockMvc.perform(get(BASE_API).param("limit", "20").param("orders", "preview"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value(1));
+
+        verify(customerOrderPreviews).fillPreviews(List.of(dto));
+        verify(customerRepository, never()).findBefore(any(), anyInt());
+    }
+
+    @Test
+    void testGetCustomers_UnknownOrdersMode() throws Exception {
+        mockMvc.perform(get(BASE_API).param("orders", "some"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message")
+                        .value("Unknown orders mode 'some', expected any of [all, preview, count]"));
+    }
+
+    @Test
+    void testGetCustomerById_ETagFromVersionAndOrders() throws Exception {
+        when(fetchGraphLoader.findById(Customer.class, 1L, List.of("orders"))).thenReturn(Optional.of(customer));
+        when(customerMapper.toDto(any(Customer.class))).thenReturn(dto);
+        when(customerRepository.findVersionById(1L)).thenReturn(Optional.of(version(2L, 3L, 30L)));
+
+        mockMvc.perform(get(BASE_API + "/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(ETAG, etag(2L, 3L, 30L, OrdersMode.ALL)))
+                .andExpect(jsonPath("$.name").value("John Doe"))
+                .andExpect(jsonPath("$.version").doesNotExist())
+                .andExpect(jsonPath("$.orderState").doesNotExist());
+    }
+
+    @Test
+    void testGetCustomerById_NotModifiedFromVersionLookup() throws Exception {
+        String etag = etag(2L, 3L, 30L, OrdersMode.ALL);
+        when(customerRepository.findVersionById(1L)).thenReturn(Optional.of(version(2L, 3L, 30L)));
+
+        mockMvc.perform(get(BASE_API + "/1").header(IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(ETAG, etag));
+
+        verify(fetchGraphLoader, never()).findById(any(), any(), any());
+    }
+
+    @Test
+    void testGetCustomerById_NewOrderChangesETag() throws Exception {
+        // Creating an order leaves the customer row (and version) alone, but the state of its orders changes
+        when(customerRepository.findVersionById(1L)).thenReturn(Optional.of(version(2L, 4L, 31L)));
+        when(fetchGraphLoader.findById(Customer.class, 1L, List.of("orders"))).thenReturn(Optional.of(customer));
+        when(customerMapper.toDto(any(Customer.class))).thenReturn(dto);
+
+        mockMvc.perform(get(BASE_API + "/1").header(IF_NONE_MATCH, etag(2L, 3L, 30L, OrdersMode.ALL)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(ETAG, etag(2L, 4L, 31L, OrdersMode.ALL)));
+    }
+
+    @Test
+    void testGetCustomerById_OrdersModesHaveTheirOwnETags() throws Exception {
+        when(customerRepository.findVersionById(1L)).thenReturn(Optional.of(version(2L, 3L, 30L)));
+        when(fetchGraphLoader.findById(eq(Customer.class), eq(1L), any())).thenReturn(Optional.of(customer));
+        when(customerMapper.toDto(any(Customer.class))).thenReturn(dto);
+        String full = etag(2L, 3L, 30L, OrdersMode.ALL);
+
+        // A body stored for ?orders=all must not be revalidated for ?orders=count
+        mockMvc.perform(get(BASE_API + "/1").param("orders", "count").header(IF_NONE_MATCH, full))
+                .andExpect(status().isOk())
+                .andExpect(header().string(ETAG, etag(2L, 3L, 30L, OrdersMode.COUNT)));
+        mockMvc.perform(get(BASE_API + "/1").param("orders", "preview"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(ETAG, etag(2L, 3L, 30L, OrdersMode.PREVIEW)));
+        assertThat(List.of(full, etag(2L, 3L, 30L, OrdersMode.COUNT), etag(2L, 3L, 30L, OrdersMode.PREVIEW)))
+                .doesNotHaveDuplicates();
+    }
+
+    @Test
+    void testGetCustomerById_NotModifiedOfUnknownCustomer() throws Exception {
+        when(customerRepository.findVersionById(404L)).thenReturn(Optional.empty());
+
+        mockMvc.perform(get(BASE_API + "/404").header(IF_NONE_MATCH, "\"2\"")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testGetCustomerById_NotFound() throws Exception {
+        when(fetchGraphLoader.findById(Customer.class, 404L, List.of("orders"))).thenReturn(Optional.empty());
+
+        mockMvc.perform(get(BASE_API + "/404")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testGetCustomerOrders() throws Exception {
+        CustomerOrderView first = mock(CustomerOrderView.class);
+        CustomerOrderView second = mock(CustomerOrderView.class);
+        when(orderRepository.findOfCustomer(1L, null, 2)).thenReturn(List.of(first, second));
+        CustomerOrderDTO order = new CustomerOrderDTO();
+        order.setId(30L);
+        order.setDescription("Latest");
+        when(customerMapper.toOrderDto(any(CustomerOrderView.class))).thenReturn(order);
+
+        mockMvc.perform(get(BASE_API + "/1/orders").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].description").value("Latest"))
+                .andExpect(jsonPath("$.nextCursor").value("MzA"));
+    }
+
+    @Test
+    void testGetCustomerOrders_NotFound() throws Exception {
+        when(customerRepository.existsById(404L)).thenReturn(false);
+
+        mockMvc.perform(get(BASE_API + "/404/orders")).andExpect(status().isNotFound());
+    }
+
     @Test
     void testSearchCustomers() throws Exception {
-        when(customerRepository.searchByNameSubstring(eq("john"))).thenReturn(List.of(this.customer));
-        when(customerMapper.toDto(customer)).thenReturn(dto);
+        CustomerNameView view = mock(CustomerNameView.class);
+        when(customerRepository.searchRankedByName(eq("john"), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(view)));
+        when(customerMapper.toSummaryDto(view)).thenReturn(new CustomerSummaryDTO(1L, "John Doe"));
 
         mockMvc.perform(get(BASE_API + "/search").param("q", "john"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].id").value(1))
-                .andExpect(jsonPath("$[0].name").value("John Doe"));
+                .andExpect(jsonPath("$.content[0].id").value(1))
+                .andExpect(jsonPath("$.content[0].name").value("John Doe"))
+                .andExpect(jsonPath("$.content[0].orders").doesNotExist());
+    }
+
+    @Test
+    void testSearchCustomers_PageSizeIsCapped() throws Exception {
+        when(customerRepository.searchRankedByName(eq("a"), any(Pageable.class))).thenReturn(Page.empty());
+
+        mockMvc.perform(get(BASE_API + "/search").param("q", "a").param("size", "5000"))
+                .andExpect(status().isOk());
+
+        verify(customerRepository).searchRankedByName("a", PageRequest.of(0, 50));
+    }
+
+    @Test
+    void testSearchCustomers_BeyondResultCapKeepsCappedTotal() throws Exception {
+        PageRequest page = PageRequest.of(20, 50);
+        when(customerRepository.searchRankedByName("a", page)).thenReturn(new PageImpl<>(List.of(), page, 1000));
+
+        mockMvc.perform(get(BASE_API + "/search")
+                        .param("q", "a")
+                        .param("page", "20")
+                        .param("size", "50"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(0)))
+                .andExpect(jsonPath("$.totalElements").value(1000));
     }
 
     @Test
@@ -142,4 +384,27 @@ class CustomerControllerTests {
                 .andExpect(jsonPath("$.error").value("unexpected_error"))
                 .andExpect(jsonPath("$.message").value("server error"));
     }
+
+    private static String etag(long version, long orderCount, long latestOrderId, OrdersMode mode) {
+        return ETags.of(version, List.of(orderCount, latestOrderId, (long) mode.name().hashCode()));
+    }
+
+    private static CustomerVersionView version(Long version, Long orderCount, Long latestOrderId) {
+        return new CustomerVersionView() {
+            @Override
+            public Long getVersion() {
+                return version;
+            }
+
+            @Override
+            public Long getOrderCount() {
+                return orderCount;
+            }
+
+            @Override
+            public Long getLatestOrderId() {
+                return latestOrderId;
+            }
+        };
+    }
 }
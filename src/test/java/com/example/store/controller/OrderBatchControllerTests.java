@@ -0,0 +1,93 @@
+package com.example.store.controller;
+
+import com.example.store.cache.DtoCache;
+import com.example.store.dto.OrderCustomerDTO;
+import com.example.store.dto.OrderDTO;
+import com.example.store.dto.OrderProductDTO;
+import com.example.store.mapper.OrderMapper;
+import com.example.store.repository.ApproximateCounts;
+import com.example.store.repository.CustomerRepository;
+import com.example.store.repository.FetchGraphLoader;
+import com.example.store.repository.OrderIdPreviews;
+import com.example.store.repository.OrderRepository;
+import com.example.store.repository.ProductRepository;
+import com.example.store.service.OrderBatchService;
+import com.example.store.service.OrderExportService;
+import com.example.store.service.OrderService;
+import com.example.store.service.ProductService;
+import com.example.store.stats.StoreStatistics;
+
+import jakarta.persistence.EntityManager;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/** {@code POST /orders/batch} through the real {@link OrderBatchService}, with the persistence layer mocked. */
+@WebMvcTest(OrderController.class)
+@ComponentScan(basePackageClasses = OrderMapper.class)
+@Import({OrderService.class, ProductService.class, OrderBatchService.class, DtoCache.class, OrderIdPreviews.class})
+class OrderBatchControllerTests {
+
+    private static final String BASE_API = "/api/v1/orders";
+    private static final String ORDER =
+            "{\"description\": \"Batch order\", \"customer\": {\"id\": 1}, \"products\": [{\"id\": 10}]}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private OrderMapper orderMapper;
+
+    @MockitoBean
+    private OrderRepository orderRepository;
+
+    @MockitoBean
+    private CustomerRepository customerRepository;
+
+    @MockitoBean
+    private ProductRepository productRepository;
+
+    @MockitoBean
+    private OrderExportService orderExportService;
+
+    @MockitoBean
+    private FetchGraphLoader fetchGraphLoader;
+
+    @MockitoBean
+    private StoreStatistics storeStatistics;
+
+    @MockitoBean
+    private ApproximateCounts approximateCounts;
+
+    @MockitoBean
+    private EntityManager entityManager;
+
+    @Test
+    void testCreateOrdersBatch_NullItemIsRejectedOnItsOwn() throws Exception {
+        when(customerRepository.findExistingIds(anyCollection())).thenReturn(Set.of(1L));
+        when(productRepository.findExistingIds(anyCollection())).thenReturn(Set.of(10L));
+
+        mockMvc.perform(post(BASE_API + "/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + ORDER + ", null]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.results[0].status").value("CREATED"))
+                .andExpect(jsonPath("$.results[1].status").value("REJECTED"))
+                .andExpect(jsonPath("$.results[1].message").value("order is required"));
+    }
+}
@@ -1,12 +1,25 @@
 package com.example.store.controller;
 
+import com.example.store.cache.DtoCache;
+import com.example.store.dto.OrderBatchResponseDTO;
+import com.example.store.dto.OrderBatchResultDTO;
 import com.example.store.dto.OrderCustomerDTO;
 import com.example.store.dto.OrderDTO;
 import com.example.store.dto.OrderProductDTO;
 import com.example.store.entity.Order;
+import com.example.store.entity.Product;
 import com.example.store.mapper.OrderMapper;
+import com.example.store.repository.ApproximateCounts;
 import com.example.store.repository.CustomerRepository;
+import com.example.store.repository.FetchGraphLoader;
+import com.example.store.repository.OrderIdPreviews;
 import com.example.store.repository.OrderRepository;
+import com.example.store.repository.ProductRepository;
+import com.example.store.service.OrderBatchService;
+import com.example.store.service.OrderExportService;
+import com.example.store.service.OrderService;
+import com.example.store.service.ProductService;
+import com.example.store.stats.StoreStatistics;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -14,29 +27,48 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Import;
 import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.http.HttpHeaders.ETAG;
+import static org.springframework.http.HttpHeaders.IF_NONE_MATCH;
 import static org.springframework.http.HttpHeaders.LOCATION;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(OrderController.class)
 @ComponentScan(basePackageClasses = OrderMapper.class)
+@Import({OrderService.class, ProductService.class, DtoCache.class, OrderIdPreviews.class})
 class OrderControllerTests {
 
     private static final String BASE_URL = "http://localhost";
@@ -57,11 +89,34 @@ class OrderControllerTests {
     @MockitoBean
     private CustomerRepository customerRepository;
 
+    @MockitoBean
+    private OrderExportService orderExportService;
+
+    @MockitoBean
+    private OrderBatchService orderBatchService;
+
+    @MockitoBean
+    private ProductRepository productRepository;
+
+    @MockitoBean
+    private FetchGraphLoader fetchGraphLoader;
+
+    @MockitoBean
+    private StoreStatistics storeStatistics;
+
+    @MockitoBean
+    private ApproximateCounts approximateCounts;
+
+    @Autowired
+    private DtoCache dtoCache;
+
     private Order order;
     private OrderDTO dto;
 
     @BeforeEach
     void setUp() {
+        dtoCache.invalidateAll();
+
         order = new Order();
         order.setId(1L);
         OrderCustomerDTO customer = new OrderCustomerDTO();
@@ -82,7 +137,7 @@ class OrderControllerTests {
     @Test
     void testGetAllOrders() throws Exception {
         Page<Order> page = new PageImpl<>(List.of(order));
-        when(orderRepository.findAll(any(PageRequest.class))).thenReturn(page);
+        when(orderRepository.findPage(any(PageRequest.class))).thenReturn(page);
         when(orderMapper.toDto(any(Order.class))).thenReturn(dto);
 
         mockMvc.perform(get(BASE_API).param("page", "0").param("size", "20"))
@@ -92,6 +147,115 @@ class OrderControllerTests {
                 .andExpect(jsonPath("$.content[0].customer.name").value("John Doe"));
     }
 
+    @Test
+    void testGetOrders_CountNoneIsASliceWithoutTotals() throws Exception {
+        when(orderRepository.findSlice(any(PageRequest.class)))
+                .thenReturn(new SliceImpl<>(List.of(order), PageRequest.of(0, 1), true));
+        when(orderMapper.toDto(any(Order.class))).thenReturn(dto);
+
+        mockMvc.perform(get(BASE_API).param("size", "1").param("count", "none"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value(1))
+                .andExpect(jsonPath("$.last").value(false))
+                .andExpect(jsonPath("$.totalElements").doesNotExist());
+
+        verify(orderRepository, never()).findPage(any());
+        verify(approximateCounts, never()).count(any());
+    }
+
+    @Test
+    void testGetOrders_CountApproxUsesTheEstimate() throws Exception {
+        when(orderRepository.findSlice(any(PageRequest.class)))
+                .thenReturn(new SliceImpl<>(List.of(order), PageRequest.of(0, 1), true));
+        when(orderMapper.toDto(any(Order.class))).thenReturn(dto);
+        when(approximateCounts.count("\"order\"")).thenReturn(5000L);
+
+        mockMvc.perform(get(BASE_API).param("size", "1").param("count", "approx"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(5000))
+                .andExpect(jsonPath("$.totalPages").value(5000));
+
+        verify(orderRepository, never()).findPage(any());
+    }
+
+    @Test
+    void testGetOrders_UnknownCountMode() throws Exception {
+        mockMvc.perform(get(BASE_API).param("count", "some"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message")
+                        .value("Unknown count mode 'some', expected any of [none, approx, exact]"));
+    }
+
+    @Test
+    void testGetOrdersByCursor_FirstPage() throws Exception {
+        when(orderRepository.findBefore(null, 3)).thenReturn(List.of(order, order, order));
+        when(orderMapper.toDto(any(Order.class))).thenReturn(dto);
+
+        mockMvc.perform(get(BASE_API).param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(2)))
+                .andExpect(jsonPath("$.content[0].id").value(1))
+                .andExpect(jsonPath("$.nextCursor").value("MQ"));
+    }
+
+    @Test
+    void testGetOrdersByCursor_LastPage() throws Exception {
+        when(orderRepository.findBefore(1L, 3)).thenReturn(List.of(order));
+        when(orderMapper.toDto(any(Order.class))).thenReturn(dto);
+
+        mockMvc.perform(get(BASE_API).param("after", "MQ").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.nextCursor").isEmpty());
+    }
+
+    @Test
+    void testGetOrdersByCursor_SparseFieldsFetchOnlyRequestedAssociations() throws Exception {
+        when(orderRepository.findKeysetIds(null, 3)).thenReturn(List.of(1L));
+        when(fetchGraphLoader.findAllById(Order.class, List.of(1L), List.of("customer")))
+                .thenReturn(List.of(order));
+        when(orderMapper.toDto(any(Order.class))).thenReturn(dto);
+
+        mockMvc.perform(get(BASE_API).param("limit", "2").param("fields", "customer"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value(1))
+                .andExpect(jsonPath("$.content[0].customer.name").value("John Doe"))
+                .andExpect(jsonPath("$.content[0].description").doesNotExist())
+                .andExpect(jsonPath("$.content[0].products").doesNotExist())
+                .andExpect(jsonPath("$.nextCursor").isEmpty());
+
+        verify(orderRepository, never()).findBefore(any(), anyInt());
+    }
+
+    @Test
+    void testGetOrdersByCursor_InvalidCursor() throws Exception {
+        mockMvc.perform(get(BASE_API).param("after", "Zm9v").param("limit", "2"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Invalid cursor"));
+    }
+
+    @Test
+    void testExportOrders_StreamsNdjson() throws Exception {
+        doAnswer(invocation -> {
+                    OutputStream out = invocation.getArgument(0);
+                    out.write("{\"id\":2}\n{\"id\":1}\n".getBytes(StandardCharsets.UTF_8));
+                    return null;
+                })
+                .when(orderExportService)
+                .exportTo(any(OutputStream.class));
+
+        MvcResult result = mockMvc.perform(get(BASE_API + "/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        // Its own timeout rather than spring.mvc.async.request-timeout
+        assertThat(result.getRequest().getAsyncContext().getTimeout()).isEqualTo(Duration.ofMinutes(30).toMillis());
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string("{\"id\":2}\n{\"id\":1}\n"));
+    }
+
     @Test
     void testGetOrderById_Found() throws Exception {
         when(orderRepository.findById(eq(1L))).thenReturn(Optional.of(order));
@@ -103,6 +267,81 @@ class OrderControllerTests {
                 .andExpect(jsonPath("$.customer.name").value("John Doe"));
     }
 
+    @Test
+    void testGetOrderById_ServedFromCache() throws Exception {
+        when(orderRepository.findById(eq(1L))).thenReturn(Optional.of(order));
+        when(orderMapper.toDto(any(Order.class))).thenReturn(dto);
+
+        mockMvc.perform(get(BASE_API + "/1")).andExpect(status().isOk());
+        mockMvc.perform(get(BASE_API + "/1")).andExpect(status().isOk()).andExpect(jsonPath("$.id").value(1));
+
+        verify(orderRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void testGetOrderById_NotModifiedFromVersionLookup() throws Exception {
+        when(orderRepository.findVersionById(eq(1L))).thenReturn(Optional.of(5L));
+
+        mockMvc.perform(get(BASE_API + "/1").header(IF_NONE_MATCH, "\"5\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(ETAG, "\"5\""));
+
+        verify(orderRepository, never()).findById(any());
+    }
+
+    @Test
+    void testGetOrderById_ETagFromVersion() throws Exception {
+        dto.setVersion(5L);
+        when(orderRepository.findById(eq(1L))).thenReturn(Optional.of(order));
+        when(orderMapper.toDto(any(Order.class))).thenReturn(dto);
+
+        mockMvc.perform(get(BASE_API + "/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(ETAG, "\"5\""))
+                .andExpect(jsonPath("$.version").doesNotExist());
+    }
+
+    @Test
+    void testGetOrderById_SparseFieldsHaveTheirOwnETag() throws Exception {
+        dto.setVersion(5L);
+        when(orderRepository.findVersionById(eq(1L))).thenReturn(Optional.of(5L));
+        when(fetchGraphLoader.findById(Order.class, 1L, List.of())).thenReturn(Optional.of(order));
+        when(orderMapper.toDto(any(Order.class))).thenReturn(dto);
+
+        // The full representation's ETag must not validate a subset of it
+        String etag = mockMvc.perform(
+                        get(BASE_API + "/1").param("fields", "description").header(IF_NONE_MATCH, "\"5\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(ETAG, not("\"5\"")))
+                .andReturn()
+                .getResponse()
+                .getHeader(ETAG);
+
+        mockMvc.perform(get(BASE_API + "/1").param("fields", "description,id").header(IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(ETAG, etag));
+    }
+
+    @Test
+    void testGetOrderById_NotModifiedUnknownId() throws Exception {
+        when(orderRepository.findVersionById(eq(42L))).thenReturn(Optional.empty());
+
+        mockMvc.perform(get(BASE_API + "/42").header(IF_NONE_MATCH, "\"5\"")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testGetOrderById_SparseFieldsOnCacheMiss() throws Exception {
+        when(fetchGraphLoader.findById(Order.class, 1L, List.of())).thenReturn(Optional.of(order));
+        when(orderMapper.toDto(any(Order.class))).thenReturn(dto);
+
+        mockMvc.perform(get(BASE_API + "/1").param("fields", "description"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.description").value("Test Order"))
+                .andExpect(jsonPath("$.customer").doesNotExist());
+
+        verify(orderRepository, never()).findById(any());
+    }
+
     @Test
     void testGetOrderById_NotFound() throws Exception {
         when(orderRepository.findById(eq(42L))).thenReturn(Optional.empty());
@@ -110,6 +349,12 @@ class OrderControllerTests {
         mockMvc.perform(get(BASE_API + "/42")).andExpect(status().isNotFound());
     }
 
+    @Test
+    void testGetSubmission_NotFoundWhenOrdersAreCreatedSynchronously() throws Exception {
+        mockMvc.perform(get(BASE_API + "/submissions/0b5d7c84-0000-4000-8000-000000000000"))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void testCreateOrder_Success() throws Exception {
         OrderDTO payload = new OrderDTO();
@@ -132,6 +377,26 @@ class OrderControllerTests {
                 .andExpect(header().exists(LOCATION))
                 .andExpect(header().string(LOCATION, BASE_URL + BASE_API + "/1"))
                 .andExpect(content().string(""));
+
+        verify(storeStatistics).recordOrders(List.of(payload));
+    }
+
+    @Test
+    void testCreateOrder_InvalidatesCachedProducts() throws Exception {
+        Product product = new Product();
+        product.setId(10L);
+        product.setDescription("P1");
+        when(productRepository.findById(eq(10L))).thenReturn(Optional.of(product));
+        when(orderMapper.toEntity(any(OrderDTO.class))).thenReturn(order);
+        dtoCache.getProduct(10L);
+
+        mockMvc.perform(post(BASE_API)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isCreated());
+        dtoCache.getProduct(10L);
+
+        verify(productRepository, times(2)).findById(10L);
     }
 
     @Test
@@ -239,4 +504,26 @@ class OrderControllerTests {
                 .andExpect(status().is5xxServerError())
                 .andExpect(jsonPath("$.message").value("concurrency error"));
     }
+
+    @Test
+    void testCreateOrdersBatch_ReturnsPerItemResults() throws Exception {
+        OrderBatchResponseDTO response = new OrderBatchResponseDTO(
+                1,
+                1,
+                List.of(
+                        OrderBatchResultDTO.created(0, 10001L),
+                        OrderBatchResultDTO.rejected(1, "Unknown customer id 999")));
+        when(orderBatchService.createAll(anyList())).thenReturn(response);
+
+        mockMvc.perform(post(BASE_API + "/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(dto, dto))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.results[0].status").value("CREATED"))
+                .andExpect(jsonPath("$.results[0].id").value(10001))
+                .andExpect(jsonPath("$.results[1].status").value("REJECTED"))
+                .andExpect(jsonPath("$.results[1].message").value("Unknown customer id 999"));
+    }
 }
@@ -0,0 +1,175 @@
+package com.example.store.controller;
+
+import com.example.store.cache.DtoCache;
+import com.example.store.dto.OrderBatchResponseDTO;
+import com.example.store.dto.OrderBatchResultDTO;
+import com.example.store.dto.OrderCustomerDTO;
+import com.example.store.dto.OrderDTO;
+import com.example.store.dto.OrderProductDTO;
+import com.example.store.mapper.OrderMapper;
+import com.example.store.repository.ApproximateCounts;
+import com.example.store.repository.CustomerRepository;
+import com.example.store.repository.FetchGraphLoader;
+import com.example.store.repository.OrderIdPreviews;
+import com.example.store.repository.OrderRepository;
+import com.example.store.repository.ProductRepository;
+import com.example.store.service.OrderBatchService;
+import com.example.store.service.OrderExportService;
+import com.example.store.service.OrderService;
+import com.example.store.service.OrderSubmissionQueue;
+import com.example.store.service.ProductService;
+import com.example.store.stats.StoreStatistics;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.Matchers.startsWith;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+import static org.springframework.http.HttpHeaders.LOCATION;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/** {@code POST /orders} with {@code store.orders.async.enabled}: accepted at once, then polled until written. */
+@WebMvcTest(controllers = OrderController.class, properties = "store.orders.async.enabled=true")
+@ComponentScan(basePackageClasses = OrderMapper.class)
+@Import({
+    OrderService.class,
+    ProductService.class,
+    DtoCache.class,
+    OrderIdPreviews.class,
+    OrderSubmissionQueue.class,
+    SimpleMeterRegistry.class
+})
+class OrderSubmissionControllerTests {
+
+    private static final String BASE_URL = "http://localhost";
+    private static final String BASE_API = "/api/v1/orders";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockitoBean
+    private OrderMapper orderMapper;
+
+    @MockitoBean
+    private OrderRepository orderRepository;
+
+    @MockitoBean
+    private CustomerRepository customerRepository;
+
+    @MockitoBean
+    private OrderExportService orderExportService;
+
+    @MockitoBean
+    private OrderBatchService orderBatchService;
+
+    @MockitoBean
+    private ProductRepository productRepository;
+
+    @MockitoBean
+    private FetchGraphLoader fetchGraphLoader;
+
+    @MockitoBean
+    private StoreStatistics storeStatistics;
+
+    @MockitoBean
+    private ApproximateCounts approximateCounts;
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+    }
+
+    @Test
+    void testCreateOrder_AcceptedThenCreated() throws Exception {
+        when(orderBatchService.createAll(anyList())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return new OrderBatchResponseDTO(1, 0, List.of(OrderBatchResultDTO.created(0, 42L)));
+        });
+
+        String location = submit();
+        mockMvc.perform(get(location))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("PENDING"))
+                .andExpect(jsonPath("$.orderId").doesNotExist());
+
+        release.countDown();
+        awaitStatus(location, "CREATED");
+        mockMvc.perform(get(location)).andExpect(jsonPath("$.orderId").value(42));
+    }
+
+    @Test
+    void testCreateOrder_AcceptedThenFailed() throws Exception {
+        when(orderBatchService.createAll(anyList())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            throw new IllegalStateException("Database unavailable");
+        });
+
+        String location = submit();
+        mockMvc.perform(get(location)).andExpect(jsonPath("$.status").value("PENDING"));
+
+        release.countDown();
+        awaitStatus(location, "FAILED");
+        mockMvc.perform(get(location)).andExpect(jsonPath("$.message").value("Database unavailable"));
+    }
+
+    @Test
+    void testGetSubmission_UnknownId() throws Exception {
+        mockMvc.perform(get(BASE_API + "/submissions/0b5d7c84-0000-4000-8000-000000000000"))
+                .andExpect(status().isNotFound());
+    }
+
+    private String submit() throws Exception {
+        String location = mockMvc.perform(post(BASE_API)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(order())))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string(LOCATION, startsWith(BASE_URL + BASE_API + "/submissions/")))
+                .andExpect(jsonPath("$.status").value("PENDING"))
+                .andReturn()
+                .getResponse()
+                .getHeader(LOCATION);
+        return location.substring(BASE_URL.length());
+    }
+
+    private void awaitStatus(String location, String expected) {
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> mockMvc.perform(get(location))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value(expected)));
+    }
+
+    private static OrderDTO order() {
+        OrderCustomerDTO customer = new OrderCustomerDTO();
+        customer.setId(1L);
+        OrderProductDTO product = new OrderProductDTO();
+        product.setId(10L);
+        OrderDTO order = new OrderDTO();
+        order.setDescription("Queued order");
+        order.setCustomer(customer);
+        order.setProducts(List.of(product));
+        return order;
+    }
+}
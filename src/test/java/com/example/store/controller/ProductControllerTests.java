@@ -1,16 +1,30 @@
 package com.example.store.controller;
 
+import com.example.store.cache.DtoCache;
+import com.example.store.config.BinaryFormatsConfig;
 import com.example.store.dto.ProductDTO;
 import com.example.store.entity.Product;
 import com.example.store.mapper.ProductMapper;
+import com.example.store.repository.ApproximateCounts;
+import com.example.store.repository.OrderIdPreviews;
+import com.example.store.repository.OrderRepository;
+import com.example.store.repository.ProductOrderIdView;
 import com.example.store.repository.ProductRepository;
+import com.example.store.repository.ProductVersionView;
+import com.example.store.service.OrderService;
+import com.example.store.service.ProductService;
+import com.example.store.stats.StoreStatistics;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Import;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
@@ -22,9 +36,17 @@ import org.springframework.test.web.servlet.MockMvc;
 import java.util.List;
 import java.util.Optional;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.http.HttpHeaders.ETAG;
+import static org.springframework.http.HttpHeaders.IF_NONE_MATCH;
 import static org.springframework.http.HttpHeaders.LOCATION;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -32,6 +54,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 @WebMvcTest(controllers = ProductController.class)
 @ComponentScan(basePackageClasses = ProductMapper.class)
+@Import({ProductService.class, DtoCache.class, OrderIdPreviews.class, BinaryFormatsConfig.class})
 class ProductControllerTests {
 
     private static final String BASE_URL = "http://localhost";
@@ -49,11 +72,28 @@ class ProductControllerTests {
     @MockitoBean
     private ProductMapper productMapper;
 
+    @MockitoBean
+    private OrderRepository orderRepository;
+
+    @MockitoBean
+    private StoreStatistics storeStatistics;
+
+    @MockitoBean
+    private ApproximateCounts approximateCounts;
+
+    @MockitoBean
+    private OrderService orderService;
+
+    @Autowired
+    private DtoCache dtoCache;
+
     private Product entity;
     private ProductDTO dto;
 
     @BeforeEach
     void setUp() {
+        dtoCache.invalidateAll();
+
         entity = new Product();
         entity.setId(1L);
         dto = new ProductDTO();
@@ -64,7 +104,7 @@ class ProductControllerTests {
     @Test
     void testGetAllProducts() throws Exception {
         Page<Product> page = new PageImpl<>(List.of(entity));
-        when(productRepository.findAll(any(PageRequest.class))).thenReturn(page);
+        when(productRepository.findPage(any(PageRequest.class))).thenReturn(page);
         when(productMapper.toDto(any(Product.class))).thenReturn(dto);
 
         mockMvc.perform(get(BASE_API).param("page", "0").param("size", "20"))
@@ -73,6 +113,53 @@ class ProductControllerTests {
                 .andExpect(jsonPath("$.content[0].description").value("Widget"));
     }
 
+    @Test
+    void testGetAllProducts_Cbor() throws Exception {
+        Page<Product> page = new PageImpl<>(List.of(entity));
+        when(productRepository.findPage(any(PageRequest.class))).thenReturn(page);
+        when(productMapper.toDto(any(Product.class))).thenReturn(dto);
+
+        byte[] body = mockMvc.perform(get(BASE_API).accept("application/cbor"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/cbor"))
+                .andReturn()
+                .getResponse()
+                .getContentAsByteArray();
+
+        JsonNode json = new ObjectMapper(new CBORFactory()).readTree(body);
+        assertThat(json.at("/content/0/id").asLong()).isEqualTo(7);
+        assertThat(json.at("/content/0/description").asText()).isEqualTo("Widget");
+    }
+
+    @Test
+    void testGetProductById_Smile() throws Exception {
+        when(productRepository.findById(eq(7L))).thenReturn(Optional.of(entity));
+        when(productMapper.toDto(any(Product.class))).thenReturn(dto);
+
+        byte[] body = mockMvc.perform(get(BASE_API + "/7").accept("application/x-jackson-smile"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-jackson-smile"))
+                .andReturn()
+                .getResponse()
+                .getContentAsByteArray();
+
+        JsonNode json = new ObjectMapper(new SmileFactory()).readTree(body);
+        assertThat(json.get("id").asLong()).isEqualTo(7);
+        assertThat(json.get("description").asText()).isEqualTo("Widget");
+    }
+
+    @Test
+    void testGetProductsByCursor() throws Exception {
+        when(productRepository.findBefore(8L, 21)).thenReturn(List.of(entity));
+        when(productMapper.toDto(any(Product.class))).thenReturn(dto);
+
+        mockMvc.perform(get(BASE_API).param("after", "OA").param("limit", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].id").value(7))
+                .andExpect(jsonPath("$.nextCursor").isEmpty());
+    }
+
     @Test
     void testGetProductById_Found() throws Exception {
         when(productRepository.findById(eq(7L))).thenReturn(Optional.of(entity));
@@ -84,6 +171,149 @@ class ProductControllerTests {
                 .andExpect(jsonPath("$.description").value("Widget"));
     }
 
+    @Test
+    void testGetProductById_ETagFromVersionAndOrderIds() throws Exception {
+        dto.setVersion(3L);
+        when(productRepository.findById(eq(7L))).thenReturn(Optional.of(entity));
+        when(productMapper.toDto(any(Product.class))).thenReturn(dto);
+        when(productRepository.findOrderIdPreviews(List.of(7L), 100)).thenReturn(List.of(row(7L, 12L)));
+
+        mockMvc.perform(get(BASE_API + "/7"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(ETAG, ETags.of(3L, List.of(12L))))
+                .andExpect(jsonPath("$.version").doesNotExist());
+    }
+
+    @Test
+    void testGetProductById_NotModifiedFromVersionLookup() throws Exception {
+        String etag = ETags.of(3L, List.of(12L, 11L));
+        when(productRepository.findVersionWithOrderIds(7L, 100))
+                .thenReturn(List.of(version(3L, 12L), version(3L, 11L)));
+
+        mockMvc.perform(get(BASE_API + "/7").header(IF_NONE_MATCH, "\"2\", " + etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(ETAG, etag))
+                .andExpect(content().string(""));
+
+        verify(productRepository, never()).findById(any());
+    }
+
+    @Test
+    void testGetProductById_NewOrderChangesETag() throws Exception {
+        // Linking an order leaves the product row (and version) alone, but its order ids change
+        dto.setVersion(3L);
+        when(productRepository.findVersionWithOrderIds(7L, 100))
+                .thenReturn(List.of(version(3L, 13L), version(3L, 12L)));
+        when(productRepository.findById(eq(7L))).thenReturn(Optional.of(entity));
+        when(productMapper.toDto(any(Product.class))).thenReturn(dto);
+        when(productRepository.findOrderIdPreviews(List.of(7L), 100))
+                .thenReturn(List.of(row(7L, 13L), row(7L, 12L)));
+
+        mockMvc.perform(get(BASE_API + "/7").header(IF_NONE_MATCH, ETags.of(3L, List.of(12L))))
+                .andExpect(status().isOk())
+                .andExpect(header().string(ETAG, ETags.of(3L, List.of(13L, 12L))))
+                .andExpect(jsonPath("$.orderIds", hasSize(2)));
+    }
+
+    @Test
+    void testGetProductById_NotModifiedWithoutOrders() throws Exception {
+        String etag = ETags.of(3L, List.of());
+        when(productRepository.findVersionWithOrderIds(7L, 100)).thenReturn(List.of(version(3L, null)));
+
+        mockMvc.perform(get(BASE_API + "/7").header(IF_NONE_MATCH, etag)).andExpect(status().isNotModified());
+    }
+
+    @Test
+    void testGetProductById_NotModifiedOfUnknownProduct() throws Exception {
+        when(productRepository.findVersionWithOrderIds(404L, 100)).thenReturn(List.of());
+
+        mockMvc.perform(get(BASE_API + "/404").header(IF_NONE_MATCH, "\"3\"")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testGetProductById_SparseFieldsServedFromCachedDto() throws Exception {
+        dto.setOrderIds(List.of(100L));
+        when(productRepository.findById(eq(7L))).thenReturn(Optional.of(entity));
+        when(productMapper.toDto(any(Product.class))).thenReturn(dto);
+        dtoCache.getProduct(7L);
+
+        mockMvc.perform(get(BASE_API + "/7").param("fields", "description"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(7))
+                .andExpect(jsonPath("$.description").value("Widget"))
+                .andExpect(jsonPath("$.orderIds").doesNotExist());
+
+        verify(productRepository, times(1)).findById(7L);
+    }
+
+    @Test
+    void testGetProductById_OrderIdsFromPreview() throws Exception {
+        when(productRepository.findById(eq(7L))).thenReturn(Optional.of(entity));
+        when(productMapper.toDto(any(Product.class))).thenReturn(dto);
+        when(productRepository.findOrderIdPreviews(List.of(7L), 100))
+                .thenReturn(List.of(row(7L, 12L), row(7L, 11L)));
+
+        mockMvc.perform(get(BASE_API + "/7"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.orderIds", hasSize(2)))
+                .andExpect(jsonPath("$.orderIds[0]").value(12))
+                .andExpect(jsonPath("$.orderIds[1]").value(11));
+    }
+
+    @Test
+    void testGetProductById_SparseFieldsSkipOrderIds() throws Exception {
+        when(productRepository.findById(eq(7L))).thenReturn(Optional.of(entity));
+        when(productMapper.toDto(any(Product.class))).thenReturn(dto);
+
+        mockMvc.perform(get(BASE_API + "/7").param("fields", "description"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.description").value("Widget"))
+                .andExpect(jsonPath("$.orderIds").doesNotExist());
+
+        verify(productRepository, never()).findOrderIdPreviews(any(), anyInt());
+    }
+
+    @Test
+    void testGetProductOrders() throws Exception {
+        when(productRepository.findOrderIds(7L, null, 3)).thenReturn(List.of(30L, 20L, 10L));
+
+        mockMvc.perform(get(BASE_API + "/7/orders").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(2)))
+                .andExpect(jsonPath("$.content[0]").value(30))
+                .andExpect(jsonPath("$.content[1]").value(20))
+                .andExpect(jsonPath("$.nextCursor").value("MjA"));
+    }
+
+    @Test
+    void testGetProductOrders_NextPage() throws Exception {
+        when(productRepository.findOrderIds(7L, 20L, 3)).thenReturn(List.of(10L));
+
+        mockMvc.perform(get(BASE_API + "/7/orders").param("after", "MjA").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.nextCursor").isEmpty());
+    }
+
+    @Test
+    void testGetProductOrders_NotFound() throws Exception {
+        when(productRepository.findOrderIds(404L, null, 21)).thenReturn(List.of());
+        when(productRepository.existsById(404L)).thenReturn(false);
+
+        mockMvc.perform(get(BASE_API + "/404/orders")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testGetProductById_ServedFromCache() throws Exception {
+        when(productRepository.findById(eq(7L))).thenReturn(Optional.of(entity));
+        when(productMapper.toDto(any(Product.class))).thenReturn(dto);
+
+        mockMvc.perform(get(BASE_API + "/7")).andExpect(status().isOk());
+        mockMvc.perform(get(BASE_API + "/7")).andExpect(status().isOk()).andExpect(jsonPath("$.id").value(7));
+
+        verify(productRepository, times(1)).findById(7L);
+    }
+
     @Test
     void testGetProductById_NotFound() throws Exception {
         when(productRepository.findById(eq(404L))).thenReturn(Optional.empty());
@@ -132,4 +362,32 @@ class ProductControllerTests {
                 .andExpect(status().is5xxServerError())
                 .andExpect(jsonPath("$.message").value("Bad pk"));
     }
+
+    private static ProductVersionView version(Long version, Long orderId) {
+        return new ProductVersionView() {
+            @Override
+            public Long getVersion() {
+                return version;
+            }
+
+            @Override
+            public Long getOrderId() {
+                return orderId;
+            }
+        };
+    }
+
+    private static ProductOrderIdView row(Long productId, Long orderId) {
+        return new ProductOrderIdView() {
+            @Override
+            public Long getProductId() {
+                return productId;
+            }
+
+            @Override
+            public Long getOrderId() {
+                return orderId;
+            }
+        };
+    }
 }
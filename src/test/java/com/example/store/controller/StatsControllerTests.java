@@ -0,0 +1,58 @@
+package com.example.store.controller;
+
+import com.example.store.dto.CustomerOrderCountDTO;
+import com.example.store.dto.ProductOrderCountDTO;
+import com.example.store.dto.StatsDTO;
+import com.example.store.stats.StoreStatistics;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(StatsController.class)
+class StatsControllerTests {
+
+    private static final String BASE_API = "/api/v1/stats";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private StoreStatistics storeStatistics;
+
+    @Test
+    void testGetStats() throws Exception {
+        when(storeStatistics.snapshot())
+                .thenReturn(new StatsDTO(
+                        2,
+                        5,
+                        1,
+                        7,
+                        2.5,
+                        List.of(new ProductOrderCountDTO(10L, "Widget", 4)),
+                        List.of(new CustomerOrderCountDTO(1L, "John Doe", 3)),
+                        Instant.parse("2025-01-01T00:00:00Z")));
+
+        mockMvc.perform(get(BASE_API))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.orders").value(5))
+                .andExpect(jsonPath("$.averageOrdersPerCustomer").value(2.5))
+                .andExpect(jsonPath("$.topProducts[0].id").value(10))
+                .andExpect(jsonPath("$.topProducts[0].orderCount").value(4))
+                .andExpect(jsonPath("$.topCustomers[0].name").value("John Doe"));
+    }
+
+    @Test
+    void testGetStats_NotLoadedYet() throws Exception {
+        mockMvc.perform(get(BASE_API)).andExpect(status().isServiceUnavailable());
+    }
+}
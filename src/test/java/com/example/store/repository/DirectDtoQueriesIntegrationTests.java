@@ -0,0 +1,127 @@
+package com.example.store.repository;
+
+import com.example.store.dto.ProductDTO;
+import com.example.store.mapper.CustomerMapper;
+import com.example.store.mapper.OrderMapper;
+import com.example.store.mapper.ProductMapper;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The JDBC listing path must produce the same DTOs as loading the entities and mapping them. Compared on the Liquibase
+ * seed data, against PostgreSQL in Testcontainers; skipped when Docker is not available.
+ */
+@SpringBootTest(properties = "store.listing.direct-dto.enabled=true")
+@Testcontainers(disabledWithoutDocker = true)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@Transactional(readOnly = true)
+class DirectDtoQueriesIntegrationTests {
+
+    private static final Pageable PAGE = PageRequest.of(1, 20, Sort.by("id").descending());
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16");
+
+    @Autowired
+    private DirectDtoQueries directDtoQueries;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderMapper orderMapper;
+
+    @Autowired
+    private CustomerMapper customerMapper;
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    @Autowired
+    private OrderIdPreviews orderIdPreviews;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    void linkProducts() {
+        // The seed data has no products; link a few to the latest orders so both sides have product rows
+        jdbcTemplate.update("INSERT INTO product (id, description) "
+                + "SELECT nextval('product_id_seq'), 'Product ' || g FROM generate_series(1, 3) g");
+        jdbcTemplate.update("INSERT INTO order_product (order_id, product_id) "
+                + "SELECT o.id, p.id FROM (SELECT id FROM \"order\" ORDER BY id DESC LIMIT 30) o CROSS JOIN product p");
+    }
+
+    @Test
+    void testOrderPage_MatchesMappedEntities() {
+        assertSameDtos(
+                directDtoQueries.findOrderPage(PAGE).getContent(),
+                orderRepository.findPage(PAGE).map(orderMapper::toDto).getContent());
+        assertThat(directDtoQueries.findOrderPage(PAGE).getTotalElements())
+                .isEqualTo(orderRepository.count());
+    }
+
+    @Test
+    void testOrdersBefore_MatchesKeysetPage() {
+        Long after = orderRepository.findKeysetIds(null, 5).get(4);
+
+        assertSameDtos(
+                directDtoQueries.findOrdersBefore(after, 10),
+                orderRepository.findBefore(after, 10).stream()
+                        .map(orderMapper::toDto)
+                        .toList());
+    }
+
+    @Test
+    void testCustomerPage_MatchesMappedEntities() {
+        assertSameDtos(
+                directDtoQueries.findCustomerPage(PAGE).getContent(),
+                customerRepository.findPage(PAGE).map(customerMapper::toDto).getContent());
+    }
+
+    @Test
+    void testProductPage_MatchesMappedEntities() {
+        Pageable first = PageRequest.of(0, 20, Sort.by("id").descending());
+
+        List<ProductDTO> mapped = productRepository.findPage(first).map(productMapper::toDto).getContent();
+        orderIdPreviews.fill(mapped);
+
+        assertSameDtos(directDtoQueries.findProductPage(first).getContent(), mapped);
+    }
+
+    /** Same DTOs in the same order; the order of nested collections is not part of the contract. */
+    private static void assertSameDtos(List<?> actual, List<?> expected) {
+        assertThat(actual).isNotEmpty();
+        assertThat(actual).usingRecursiveComparison().ignoringCollectionOrder().isEqualTo(expected);
+        assertThat(actual).extracting("id").containsExactlyElementsOf(extractIds(expected));
+    }
+
+    private static List<Object> extractIds(List<?> dtos) {
+        return dtos.stream().map(dto -> (Object) new BeanWrapperImpl(dto).getPropertyValue("id")).toList();
+    }
+}
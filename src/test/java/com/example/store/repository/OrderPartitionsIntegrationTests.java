@@ -0,0 +1,90 @@
+package com.example.store.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The partitioning migration ({@code schema-8.sql}) must keep the existing orders readable, and partitions must be
+ * ready for the ids the sequence hands out next. Small partitions, so the seeded orders end up in the converted
+ * tables and new ones in partitions of their own. Against PostgreSQL in Testcontainers; skipped when Docker is not
+ * available.
+ */
+@SpringBootTest(properties = {"store.orders.partitions.enabled=true", "store.orders.partitions.size=1000"})
+@AutoConfigureMockMvc
+@Testcontainers(disabledWithoutDocker = true)
+class OrderPartitionsIntegrationTests {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private OrderPartitions orderPartitions;
+
+    @Test
+    void testExistingOrdersMoveIntoTheFirstPartition() throws Exception {
+        assertThat(relkind("\"order\"")).isEqualTo("p");
+        assertThat(relkind("order_product")).isEqualTo("p");
+        assertThat(partitionOf("\"order\"", "id", 1L)).isEqualTo("order_legacy");
+
+        mockMvc.perform(get("/api/v1/orders/1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(1))
+                .andExpect(jsonPath("$.products").isArray());
+    }
+
+    @Test
+    void testLookupsByIdPruneToOnePartition() {
+        List<String> plan = jdbcTemplate.queryForList("EXPLAIN SELECT * FROM \"order\" WHERE id = 1", String.class);
+
+        assertThat(String.join("\n", plan)).contains("order_legacy").doesNotContain("order_p");
+    }
+
+    @Test
+    void testPartitionsAreCreatedAheadOfTheSequence() {
+        jdbcTemplate.queryForObject("SELECT setval('order_id_seq', 20000)", Long.class);
+        orderPartitions.createAhead();
+
+        Long id = jdbcTemplate.queryForObject(
+                "INSERT INTO \"order\" (description, customer_id) VALUES ('Partitioned', 1) RETURNING id", Long.class);
+        jdbcTemplate.update(
+                "INSERT INTO order_product (order_id, product_id) VALUES (?, (SELECT MIN(id) FROM product))", id);
+
+        assertThat(partitionOf("\"order\"", "id", id)).isEqualTo("order_p20000");
+        assertThat(partitionOf("order_product", "order_id", id)).isEqualTo("order_product_p20000");
+        // Two more partitions stay ready beyond the sequence
+        assertThat(jdbcTemplate.queryForObject("SELECT to_regclass('order_p22000') IS NOT NULL", Boolean.class))
+                .isTrue();
+    }
+
+    private String relkind(String table) {
+        return jdbcTemplate.queryForObject(
+                "SELECT relkind::text FROM pg_class WHERE oid = ?::regclass", String.class, table);
+    }
+
+    private String partitionOf(String table, String column, Long id) {
+        return jdbcTemplate.queryForObject(
+                "SELECT tableoid::regclass::text FROM " + table + " WHERE " + column + " = ?", String.class, id);
+    }
+}
@@ -0,0 +1,251 @@
+package com.example.store.repository;
+
+import com.example.store.cache.DtoCache;
+import com.example.store.metrics.SqlStatementCounter;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultMatcher;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs the read endpoints against a real PostgreSQL (with the Liquibase seed data) and asserts how many SQL statements
+ * each one executes, so a changed {@code @EntityGraph} or mapping that introduces an N+1 fails here. Hibernate is set
+ * to throw instead of paginating a collection fetch in memory. Skipped when Docker is not available.
+ */
+@SpringBootTest(
+        properties = {
+            "spring.jpa.properties.hibernate.query.fail_on_pagination_over_collection_fetch=true",
+            "store.metrics.sql-counts.enabled=true"
+        })
+@AutoConfigureMockMvc
+@Testcontainers(disabledWithoutDocker = true)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryBudgetIntegrationTests {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DtoCache dtoCache;
+
+    @BeforeAll
+    void linkProducts() {
+        // The seed data has no products; give the latest orders a few each so the product graphs have rows to load
+        jdbcTemplate.update("INSERT INTO product (id, description) "
+                + "SELECT nextval('product_id_seq'), 'Product ' || g FROM generate_series(1, 5) g");
+        jdbcTemplate.update("INSERT INTO order_product (order_id, product_id) SELECT o.id, p.id "
+                + "FROM (SELECT id FROM \"order\" ORDER BY id DESC LIMIT 100) o CROSS JOIN product p");
+    }
+
+    @BeforeEach
+    void setUp() {
+        dtoCache.invalidateAll();
+    }
+
+    @Test
+    void testGetOrders_PageIsIdsCountAndGraph() throws Exception {
+        assertThat(statements(get("/api/v1/orders").param("page", "0").param("size", "50")))
+                .isEqualTo(3);
+        assertThat(statements(get("/api/v1/orders").param("page", "3").param("size", "50")))
+                .isEqualTo(3);
+    }
+
+    @Test
+    void testGetOrders_CountNoneAndApproxSkipTheCount() throws Exception {
+        assertThat(statements(get("/api/v1/orders").param("size", "50").param("count", "none")))
+                .isEqualTo(2);
+        // The first estimate is read once, then served from the cache
+        mockMvc.perform(get("/api/v1/orders").param("count", "approx")).andExpect(status().isOk());
+        assertThat(statements(get("/api/v1/orders").param("size", "50").param("count", "approx")))
+                .isEqualTo(2);
+        assertThat(statements(get("/api/v1/customers").param("size", "50").param("count", "none")))
+                .isEqualTo(2);
+    }
+
+    @Test
+    void testGetOrders_SparseFieldsLoadOnlyTheOrderRows() throws Exception {
+        // Unrequested associations must stay unloaded: mapping one would add a statement per order
+        assertThat(statements(get("/api/v1/orders").param("size", "50").param("fields", "description")))
+                .isEqualTo(3);
+        assertThat(statements(get("/api/v1/orders").param("limit", "50").param("fields", "customer")))
+                .isEqualTo(2);
+    }
+
+    @Test
+    void testGetOrders_KeysetPageIsIdsAndGraph() throws Exception {
+        assertThat(statements(get("/api/v1/orders").param("limit", "50"))).isEqualTo(2);
+    }
+
+    @Test
+    void testGetOrder_IsOneStatementThenCached() throws Exception {
+        Long id = jdbcTemplate.queryForObject("SELECT MAX(order_id) FROM order_product", Long.class);
+
+        assertThat(statements(get("/api/v1/orders/{id}", id))).isEqualTo(1);
+        assertThat(statements(get("/api/v1/orders/{id}", id))).isZero();
+    }
+
+    @Test
+    void testGetOrder_NotModifiedIsOneVersionLookup() throws Exception {
+        Long id = jdbcTemplate.queryForObject("SELECT MAX(order_id) FROM order_product", Long.class);
+        String etag = mockMvc.perform(get("/api/v1/orders/{id}", id))
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+        dtoCache.invalidateAll();
+
+        assertThat(statements(
+                        get("/api/v1/orders/{id}", id).header(HttpHeaders.IF_NONE_MATCH, etag),
+                        status().isNotModified()))
+                .isEqualTo(1);
+    }
+
+    @Test
+    void testGetCustomers_PageIsIdsCountAndGraph() throws Exception {
+        assertThat(statements(get("/api/v1/customers").param("page", "0").param("size", "50")))
+                .isEqualTo(3);
+    }
+
+    @Test
+    void testGetCustomers_KeysetPageIsIdsAndGraph() throws Exception {
+        assertThat(statements(get("/api/v1/customers").param("limit", "50"))).isEqualTo(2);
+    }
+
+    @Test
+    void testGetCustomers_OrderPreviewAndCountAreOneStatement() throws Exception {
+        // Ids, count, customers without orders, then one bounded statement for all their orders
+        assertThat(statements(get("/api/v1/customers").param("size", "50").param("orders", "preview")))
+                .isEqualTo(4);
+        assertThat(statements(get("/api/v1/customers").param("size", "50").param("orders", "count")))
+                .isEqualTo(4);
+        assertThat(statements(get("/api/v1/customers").param("limit", "50").param("orders", "preview")))
+                .isEqualTo(3);
+    }
+
+    @Test
+    void testGetCustomer_IsOneStatementAndTheETag() throws Exception {
+        // The customer, then the version and the state of its orders for the ETag
+        Long id = jdbcTemplate.queryForObject("SELECT MAX(customer_id) FROM \"order\"", Long.class);
+
+        assertThat(statements(get("/api/v1/customers/{id}", id))).isEqualTo(2);
+        assertThat(statements(get("/api/v1/customers/{id}", id).param("orders", "count")))
+                .isEqualTo(3);
+    }
+
+    @Test
+    void testGetCustomer_NotModifiedIsOneStatement() throws Exception {
+        // The ETag of the loaded representation must equal the one computed from the version lookup alone
+        Long id = jdbcTemplate.queryForObject("SELECT MAX(customer_id) FROM \"order\"", Long.class);
+        String etag = mockMvc.perform(get("/api/v1/customers/{id}", id))
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        assertThat(statements(
+                        get("/api/v1/customers/{id}", id).header(HttpHeaders.IF_NONE_MATCH, etag),
+                        status().isNotModified()))
+                .isEqualTo(1);
+    }
+
+    @Test
+    void testGetCustomerOrders_IsOneIndexScan() throws Exception {
+        Long id = jdbcTemplate.queryForObject("SELECT MAX(customer_id) FROM \"order\"", Long.class);
+
+        assertThat(statements(get("/api/v1/customers/{id}/orders", id).param("limit", "50")))
+                .isEqualTo(1);
+    }
+
+    @Test
+    void testSearchCustomers_IsQueryAndCappedCount() throws Exception {
+        assertThat(statements(get("/api/v1/customers/search").param("q", "a").param("size", "1")))
+                .isEqualTo(2);
+    }
+
+    @Test
+    void testGetProducts_PageIsProductsCountAndOrderIds() throws Exception {
+        // Fewer products than the page size, so Spring Data skips the count query
+        assertThat(statements(get("/api/v1/products").param("page", "0").param("size", "50")))
+                .isEqualTo(2);
+        assertThat(statements(get("/api/v1/products").param("page", "0").param("size", "2")))
+                .isEqualTo(3);
+    }
+
+    @Test
+    void testGetProducts_KeysetPageIsProductsAndOrderIds() throws Exception {
+        assertThat(statements(get("/api/v1/products").param("limit", "50"))).isEqualTo(2);
+    }
+
+    @Test
+    void testGetProduct_IsProductAndOrderIdsThenCached() throws Exception {
+        Long id = jdbcTemplate.queryForObject("SELECT MIN(id) FROM product", Long.class);
+
+        assertThat(statements(get("/api/v1/products/{id}", id))).isEqualTo(2);
+        assertThat(statements(get("/api/v1/products/{id}", id))).isZero();
+    }
+
+    @Test
+    void testGetProduct_NotModifiedIsOneStatement() throws Exception {
+        // The ETag of the loaded representation must equal the one computed from the version and order ids alone
+        Long id = jdbcTemplate.queryForObject("SELECT MIN(id) FROM product", Long.class);
+        String etag = mockMvc.perform(get("/api/v1/products/{id}", id))
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+        dtoCache.invalidateAll();
+
+        assertThat(statements(
+                        get("/api/v1/products/{id}", id).header(HttpHeaders.IF_NONE_MATCH, etag),
+                        status().isNotModified()))
+                .isEqualTo(1);
+    }
+
+    @Test
+    void testGetProductOrders_IsOneIndexScan() throws Exception {
+        Long id = jdbcTemplate.queryForObject("SELECT MIN(id) FROM product", Long.class);
+
+        assertThat(statements(get("/api/v1/products/{id}/orders", id).param("limit", "50")))
+                .isEqualTo(1);
+    }
+
+    @Test
+    void testGetStats_IsServedFromTheSnapshot() throws Exception {
+        assertThat(statements(get("/api/v1/stats"))).isZero();
+    }
+
+    private long statements(MockHttpServletRequestBuilder request) throws Exception {
+        return statements(request, status().isOk());
+    }
+
+    private long statements(MockHttpServletRequestBuilder request, ResultMatcher expected) throws Exception {
+        SqlStatementCounter.Counts counts = SqlStatementCounter.start();
+        try {
+            mockMvc.perform(request).andExpect(expected);
+        } finally {
+            SqlStatementCounter.stop();
+        }
+        return counts.statements();
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.store.repository;
+
+import com.example.store.entity.Customer;
+import com.example.store.entity.Product;
+import com.example.store.metrics.SqlStatementCounter;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * With {@code store.l2-cache.enabled}, a second lookup of a {@link Product} or {@link Customer} by id is served from
+ * the second-level cache without a statement, and writes never leave a stale entry behind. Against PostgreSQL in
+ * Testcontainers; skipped when Docker is not available.
+ */
+@SpringBootTest(properties = {"store.l2-cache.enabled=true", "store.metrics.sql-counts.enabled=true"})
+@Testcontainers(disabledWithoutDocker = true)
+class SecondLevelCacheIntegrationTests {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16");
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Long productId;
+    private Long customerId;
+
+    @BeforeEach
+    void setUp() {
+        entityManagerFactory.getCache().evictAll();
+        productId = jdbcTemplate.queryForObject(
+                "INSERT INTO product (id, description) VALUES (nextval('product_id_seq'), 'Cached') RETURNING id",
+                Long.class);
+        customerId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM customer", Long.class);
+    }
+
+    @Test
+    void testSecondFindByIdIsACacheHit() {
+        assertThat(statements(() -> productRepository.findById(productId))).isEqualTo(1);
+        assertThat(statements(() -> productRepository.findById(productId))).isZero();
+
+        assertThat(statements(() -> customerRepository.findById(customerId))).isEqualTo(1);
+        assertThat(statements(() -> customerRepository.findById(customerId))).isZero();
+    }
+
+    @Test
+    void testEntityUpdateReplacesTheCachedEntry() {
+        productRepository.findById(productId);
+        transactionTemplate.executeWithoutResult(status ->
+                productRepository.findById(productId).orElseThrow().setDescription("Updated"));
+
+        assertThat(statements(() -> assertThat(productRepository.findById(productId))
+                        .hasValueSatisfying(product -> assertThat(product.getDescription()).isEqualTo("Updated"))))
+                .isZero();
+    }
+
+    @Test
+    void testBulkUpdateEvictsTheCachedEntries() {
+        productRepository.findById(productId);
+        customerRepository.findById(customerId);
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager
+                    .createQuery("UPDATE Product p SET p.description = 'Bulk' WHERE p.id = :id")
+                    .setParameter("id", productId)
+                    .executeUpdate();
+            entityManager
+                    .createQuery("UPDATE Customer c SET c.name = c.name WHERE c.id = :id")
+                    .setParameter("id", customerId)
+                    .executeUpdate();
+        });
+
+        assertThat(entityManagerFactory.getCache().contains(Product.class, productId)).isFalse();
+        assertThat(entityManagerFactory.getCache().contains(Customer.class, customerId)).isFalse();
+        assertThat(statements(() -> assertThat(productRepository.findById(productId))
+                        .hasValueSatisfying(product -> assertThat(product.getDescription()).isEqualTo("Bulk"))))
+                .isEqualTo(1);
+    }
+
+    private static long statements(Runnable lookup) {
+        SqlStatementCounter.Counts counts = SqlStatementCounter.start();
+        try {
+            lookup.run();
+        } finally {
+            SqlStatementCounter.stop();
+        }
+        return counts.statements();
+    }
+}
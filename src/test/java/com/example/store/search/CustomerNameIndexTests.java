@@ -0,0 +1,129 @@
+package com.example.store.search;
+
+import com.example.store.dto.CustomerSummaryDTO;
+import com.example.store.repository.CustomerNameView;
+import com.example.store.repository.CustomerRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CustomerNameIndexTests {
+
+    private CustomerNameIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new CustomerNameIndex(null, 1000);
+        index.add(1L, "Muriel Donnelly");
+        index.add(2L, "Lance Stiedemann Sr.");
+        index.add(3L, "Denise Harris");
+        index.add(4L, "Dianne Lemke");
+    }
+
+    @Test
+    void testSearch_SubstringIgnoringCase() {
+        assertThat(search("NNEL")).extracting(CustomerSummaryDTO::getName).containsExactly("Muriel Donnelly");
+        assertThat(search("ANN")).extracting(CustomerSummaryDTO::getId).containsExactlyInAnyOrder(2L, 4L);
+    }
+
+    @Test
+    void testSearch_SpansWordBoundary() {
+        assertThat(search("ise har")).extracting(CustomerSummaryDTO::getId).containsExactly(3L);
+    }
+
+    @Test
+    void testSearch_TrigramsPresentButNotContiguous() {
+        // every trigram of "mannan" (man, ann, nna, nan) occurs in the name, but not as one run
+        index.add(5L, "Mann Annan");
+        assertThat(search("mannan")).isEmpty();
+        assertThat(search("annan")).extracting(CustomerSummaryDTO::getId).containsExactly(5L);
+    }
+
+    @Test
+    void testSearch_NoMatch() {
+        assertThat(search("zzz")).isEmpty();
+    }
+
+    @Test
+    void testSearch_RankedBySimilarity() {
+        index.add(101L, "Donna Donnelly");
+        index.add(102L, "Donnelly Muriel Anne Smith");
+        assertThat(search("donnelly"))
+                .extracting(CustomerSummaryDTO::getId)
+                .containsExactly(101L, 1L, 102L);
+    }
+
+    @Test
+    void testSearch_DuplicateAddsReturnedOnce() {
+        index.add(4L, "Dianne Lemke");
+        assertThat(search("lemke")).extracting(CustomerSummaryDTO::getId).containsExactly(4L);
+    }
+
+    @Test
+    void testSearch_KeepsOnlyTheBestButCountsEveryMatch() {
+        index.add(101L, "Donna Donnelly");
+        index.add(102L, "Donnelly Muriel Anne Smith");
+        CustomerNameIndex.Matches matches = index.search("donnelly", 2);
+
+        assertThat(matches.customers()).extracting(CustomerSummaryDTO::getId).containsExactly(101L, 1L);
+        assertThat(matches.total()).isEqualTo(3);
+        assertThat(index.search("donnelly", 0).customers()).isEmpty();
+    }
+
+    @Test
+    void testSearch_ShortQueriesAreLeftToTheDatabase() {
+        assertThatThrownBy(() -> search("de")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void testRefresh_AddsOtherInstancesCustomersOnce() {
+        CustomerRepository customerRepository = mock(CustomerRepository.class);
+        index = new CustomerNameIndex(customerRepository, 1000);
+        when(customerRepository.streamNamesAfter(0L)).thenReturn(Stream.of(name(1L, "Muriel Donnelly")));
+        index.load();
+        // 3 was created here, 2 by another instance from an older block of ids
+        index.add(3L, "Denise Harris");
+        when(customerRepository.streamNamesAfter(1L - 1000))
+                .thenReturn(Stream.of(
+                        name(1L, "Muriel Donnelly"), name(2L, "Donna Donnelly"), name(3L, "Denise Harris")));
+
+        index.refresh();
+
+        assertThat(search("donnelly")).extracting(CustomerSummaryDTO::getId).containsExactly(2L, 1L);
+        assertThat(index.search("har", 10).total()).isEqualTo(1);
+    }
+
+    @Test
+    void testSimilarity_MatchesPgTrgmDefinition() {
+        // the example from the pg_trgm docs: similarity('word', 'two words') = 0.36363637 (4 shared of 11)
+        assertThat(CustomerNameIndex.similarity(
+                        CustomerNameIndex.wordTrigrams("word"), CustomerNameIndex.wordTrigrams("two words")))
+                .isEqualTo(4 / 11d);
+    }
+
+    private List<CustomerSummaryDTO> search(String query) {
+        return index.search(query, 10).customers();
+    }
+
+    private static CustomerNameView name(Long id, String name) {
+        return new CustomerNameView() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getName() {
+                return name;
+            }
+        };
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.store.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CountModeTests {
+
+    @Test
+    void testNoneKeepsTheSlice() {
+        Slice<String> slice = new SliceImpl<>(List.of("a", "b"), PageRequest.of(0, 2), true);
+
+        assertThat(CountMode.NONE.complete(slice, () -> 100)).isSameAs(slice);
+    }
+
+    @Test
+    void testApproxUsesTheEstimateWhileThereIsANextPage() {
+        Slice<String> slice = new SliceImpl<>(List.of("a", "b"), PageRequest.of(1, 2), true);
+
+        Page<String> page = (Page<String>) CountMode.APPROX.complete(slice, () -> 100);
+
+        assertThat(page.getTotalElements()).isEqualTo(100);
+        assertThat(page.getTotalPages()).isEqualTo(50);
+        assertThat(page.hasNext()).isTrue();
+    }
+
+    @Test
+    void testApproxNeverContradictsTheSlice() {
+        // A stale estimate below what the slice has already seen
+        Slice<String> middle = new SliceImpl<>(List.of("a", "b"), PageRequest.of(3, 2), true);
+        assertThat(((Page<String>) CountMode.APPROX.complete(middle, () -> 1)).getTotalElements())
+                .isEqualTo(9);
+
+        // The last page knows the total
+        Slice<String> last = new SliceImpl<>(List.of("a"), PageRequest.of(3, 2), false);
+        assertThat(((Page<String>) CountMode.APPROX.complete(last, () -> 100)).getTotalElements())
+                .isEqualTo(7);
+
+        Slice<String> pastTheEnd = new SliceImpl<>(List.of(), PageRequest.of(3, 2), false);
+        assertThat(((Page<String>) CountMode.APPROX.complete(pastTheEnd, () -> 4)).getTotalElements())
+                .isEqualTo(4);
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.store.service;
+
+import com.example.store.cache.DtoCache;
+import com.example.store.dto.OrderBatchResponseDTO;
+import com.example.store.dto.OrderBatchResultDTO;
+import com.example.store.dto.OrderDTO;
+import com.example.store.dto.OrderSubmissionDTO;
+import com.example.store.exception.SubmissionRejectedException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OrderSubmissionQueueTests {
+
+    private final List<List<OrderDTO>> batches = new CopyOnWriteArrayList<>();
+    private final CountDownLatch writing = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private OrderSubmissionQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        OrderBatchService orderBatchService = mock(OrderBatchService.class);
+        when(orderBatchService.createAll(anyList())).thenAnswer(invocation -> {
+            List<OrderDTO> orders = invocation.getArgument(0);
+            writing.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            if (orders.stream().anyMatch(order -> order.getDescription().equals("broken"))) {
+                throw new IllegalStateException("Broken order");
+            }
+            int first = batches.stream().mapToInt(List::size).sum();
+            batches.add(new ArrayList<>(orders));
+            return new OrderBatchResponseDTO(
+                    orders.size(),
+                    0,
+                    IntStream.range(0, orders.size())
+                            .mapToObj(i -> OrderBatchResultDTO.created(i, 100L + first + i))
+                            .toList());
+        });
+        queue = new OrderSubmissionQueue(
+                orderBatchService,
+                mock(DtoCache.class),
+                new SimpleMeterRegistry(),
+                2,
+                10,
+                Duration.ZERO,
+                Duration.ofMinutes(1));
+        queue.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (queue.isRunning()) {
+            queue.stop();
+        }
+    }
+
+    @Test
+    void testQueuedOrdersAreWrittenTogether() throws Exception {
+        String first = queue.submit(order("a"));
+        assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+        // The writer is busy with the first order, so these two wait and are written as one batch
+        String second = queue.submit(order("b"));
+        String third = queue.submit(order("c"));
+        assertThat(queue.status(second).getStatus()).isEqualTo(OrderSubmissionDTO.Status.PENDING);
+
+        release.countDown();
+        queue.stop();
+
+        assertThat(batches).extracting(List::size).containsExactly(1, 2);
+        assertThat(queue.status(first).getOrderId()).isEqualTo(100L);
+        assertThat(queue.status(third).getStatus()).isEqualTo(OrderSubmissionDTO.Status.CREATED);
+        assertThat(queue.status(third).getOrderId()).isEqualTo(102L);
+    }
+
+    @Test
+    void testFailedBatchIsSplitSoOnlyTheFailingOrderFails() throws Exception {
+        queue.submit(order("a"));
+        assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+        String second = queue.submit(order("b"));
+        String broken = queue.submit(order("broken"));
+
+        release.countDown();
+        queue.stop();
+
+        // The batch of the second and the broken order is retried in halves
+        assertThat(batches).extracting(List::size).containsExactly(1, 1);
+        assertThat(queue.status(second).getStatus()).isEqualTo(OrderSubmissionDTO.Status.CREATED);
+        assertThat(queue.status(second).getOrderId()).isEqualTo(101L);
+        assertThat(queue.status(broken).getStatus()).isEqualTo(OrderSubmissionDTO.Status.FAILED);
+        assertThat(queue.status(broken).getMessage()).isEqualTo("Broken order");
+    }
+
+    @Test
+    void testFullQueueIsTooManyRequests() throws Exception {
+        queue.submit(order("a"));
+        assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+        queue.submit(order("b"));
+        queue.submit(order("c"));
+
+        assertThatThrownBy(() -> queue.submit(order("d")))
+                .isInstanceOfSatisfying(SubmissionRejectedException.class, e -> assertThat(e.getReason())
+                        .isEqualTo(SubmissionRejectedException.Reason.QUEUE_FULL));
+    }
+
+    @Test
+    void testStoppedQueueRejectsOrders() {
+        release.countDown();
+        queue.stop();
+
+        assertThatThrownBy(() -> queue.submit(order("a")))
+                .isInstanceOfSatisfying(SubmissionRejectedException.class, e -> assertThat(e.getReason())
+                        .isEqualTo(SubmissionRejectedException.Reason.SHUTTING_DOWN));
+    }
+
+    private static OrderDTO order(String description) {
+        OrderDTO order = new OrderDTO();
+        order.setDescription(description);
+        order.setProducts(List.of());
+        return order;
+    }
+}
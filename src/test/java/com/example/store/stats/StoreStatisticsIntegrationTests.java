@@ -0,0 +1,99 @@
+package com.example.store.stats;
+
+import com.example.store.dto.StatsDTO;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The counter columns and totals must agree with counting the rows, both after the migrations' backfill and once the
+ * deltas of rows created through the API are rolled up. Against PostgreSQL in Testcontainers; skipped when Docker is
+ * not available.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Testcontainers(disabledWithoutDocker = true)
+class StoreStatisticsIntegrationTests {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private StoreStatistics storeStatistics;
+
+    @Test
+    void testCreatedOrdersMoveCountersAndTotals() throws Exception {
+        StatsDTO before = storeStatistics.snapshot();
+        Long customerId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM customer", Long.class);
+        mockMvc.perform(post("/api/v1/products")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"description\":\"Counted\"}"))
+                .andExpect(status().isCreated());
+        Long productId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM product", Long.class);
+
+        String order = "{\"description\":\"Counted\",\"customer\":{\"id\":%d},\"products\":[{\"id\":%d}]}"
+                .formatted(customerId, productId);
+        mockMvc.perform(post("/api/v1/orders").contentType(MediaType.APPLICATION_JSON).content(order))
+                .andExpect(status().isCreated());
+        mockMvc.perform(post("/api/v1/orders/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + order + "," + order + "]"))
+                .andExpect(status().isOk());
+        storeStatistics.rollUp();
+        storeStatistics.refresh();
+
+        assertThat(countersOutOfStep()).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM stats_delta", Long.class))
+                .isZero();
+        StatsDTO after = storeStatistics.snapshot();
+        assertThat(after.getOrders()).isEqualTo(before.getOrders() + 3);
+        assertThat(after.getOrderLines()).isEqualTo(before.getOrderLines() + 3);
+        assertThat(after.getProducts()).isEqualTo(before.getProducts() + 1);
+        assertThat(after.getTopProducts().get(0).getId()).isEqualTo(productId);
+        assertThat(after.getTopProducts().get(0).getOrderCount()).isEqualTo(3);
+
+        assertThat(after.getOrders())
+                .isEqualTo(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM \"order\"", Long.class));
+        storeStatistics.rollUp();
+        storeStatistics.refresh();
+        assertThat(storeStatistics.snapshot().getOrders()).isEqualTo(after.getOrders());
+
+        mockMvc.perform(get("/api/v1/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.topProducts[0].id").value(productId))
+                .andExpect(jsonPath("$.topCustomers").isArray());
+    }
+
+    private long countersOutOfStep() {
+        return jdbcTemplate.queryForObject(
+                """
+                SELECT (SELECT COUNT(*) FROM customer c
+                        WHERE c.order_count <> (SELECT COUNT(*) FROM "order" o WHERE o.customer_id = c.id))
+                     + (SELECT COUNT(*) FROM product p
+                        WHERE p.order_count <> (SELECT COUNT(*) FROM order_product op WHERE op.product_id = p.id))
+                """,
+                Long.class);
+    }
+}
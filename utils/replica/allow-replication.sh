@@ -0,0 +1,4 @@
+#!/bin/bash
+# Run once by the postgres image when it initialises the primary (see docker-compose.replica.yaml)
+set -e
+echo "host replication all all scram-sha-256" >> "$PGDATA/pg_hba.conf"
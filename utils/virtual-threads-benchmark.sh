@@ -0,0 +1,27 @@
+#!/usr/bin/env sh
+# Compares platform threads (Tomcat's 200-thread pool) with virtual threads at 2,000 concurrent clients.
+# Needs a JDK 21, a running Postgres (docker compose up -d postgres) and data from ./gradlew generateData.
+# Usage: utils/virtual-threads-benchmark.sh [concurrency] [duration seconds]
+set -eu
+cd "$(dirname "$0")/.."
+
+CONCURRENCY=${1:-2000}
+DURATION=${2:-60}
+
+./gradlew -q bootJar -PjavaVersion=21
+JAR=$(ls build/libs/*.jar | grep -v plain | head -n 1)
+
+run() {
+    mode=$1
+    shift
+    java -jar "$JAR" --spring.profiles.active=loadtest "$@" > "build/virtual-threads-$mode.log" 2>&1 &
+    pid=$!
+    until curl -sf "http://localhost:8080/api/v1/orders?limit=1" > /dev/null; do sleep 1; done
+    echo "== $mode =="
+    ./gradlew -q loadTest --args="--concurrency=$CONCURRENCY --warmup=15 --duration=$DURATION --writes=false"
+    kill "$pid"
+    wait "$pid" || true
+}
+
+run platform --spring.threads.virtual.enabled=false
+run virtual --spring.threads.virtual.enabled=true